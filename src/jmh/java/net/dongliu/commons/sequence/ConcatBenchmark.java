@@ -0,0 +1,47 @@
+package net.dongliu.commons.sequence;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Per-element cost of iterating Sequences concatenated one by one, against flatMap of a Stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ConcatBenchmark {
+    private static final int CHUNK_SIZE = 10;
+
+    @Param({"10", "100", "1000"})
+    private int chunks;
+
+    private List<List<Integer>> lists;
+
+    @Setup
+    public void setup() {
+        lists = IntStream.range(0, chunks)
+                .mapToObj(i -> IntStream.range(0, CHUNK_SIZE).boxed().collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void concat(Blackhole blackhole) {
+        Sequence<Integer> sequence = Sequence.of();
+        for (var list : lists) {
+            sequence = sequence.concat(Sequence.of(list));
+        }
+        sequence.forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void streamFlatMap(Blackhole blackhole) {
+        lists.stream().flatMap(List::stream).forEach(blackhole::consume);
+    }
+}
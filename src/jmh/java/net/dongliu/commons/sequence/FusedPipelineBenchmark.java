@@ -0,0 +1,137 @@
+package net.dongliu.commons.sequence;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Per-element cost of map/filter pipelines of depth 1 to 10: fused Sequence stages, in push(forEach) and pull(next)
+ * mode, against one Sequence wrapper per stage, and java.util.stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(FusedPipelineBenchmark.SIZE)
+public class FusedPipelineBenchmark {
+    static final int SIZE = 10_000;
+
+    @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10"})
+    private int depth;
+
+    private Integer[] values;
+
+    @Setup
+    public void setup() {
+        values = IntStream.range(0, SIZE).boxed().toArray(Integer[]::new);
+    }
+
+    private static final Function<Integer, Integer> MAPPER = v -> v + 1;
+    private static final Predicate<Integer> FILTER = v -> v >= 0;
+
+    @Benchmark
+    public void fusedPush(Blackhole blackhole) {
+        Sequence<Integer> sequence = Sequence.of(values);
+        for (int i = 0; i < depth; i++) {
+            sequence = i % 2 == 0 ? sequence.map(MAPPER) : sequence.filter(FILTER);
+        }
+        sequence.forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void fusedPull(Blackhole blackhole) {
+        Sequence<Integer> sequence = Sequence.of(values);
+        for (int i = 0; i < depth; i++) {
+            sequence = i % 2 == 0 ? sequence.map(MAPPER) : sequence.filter(FILTER);
+        }
+        while (sequence.hasNext()) {
+            blackhole.consume(sequence.next());
+        }
+    }
+
+    @Benchmark
+    public void wrapped(Blackhole blackhole) {
+        Sequence<Integer> sequence = Sequence.of(values);
+        for (int i = 0; i < depth; i++) {
+            sequence = i % 2 == 0 ? new MappedSequence<>(sequence, MAPPER) : new FilterSequence<>(sequence, FILTER);
+        }
+        sequence.forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void stream(Blackhole blackhole) {
+        Stream<Integer> stream = Arrays.stream(values);
+        for (int i = 0; i < depth; i++) {
+            stream = i % 2 == 0 ? stream.map(MAPPER) : stream.filter(FILTER);
+        }
+        stream.forEach(blackhole::consume);
+    }
+
+    /**
+     * One Sequence per map stage, as before stages were fused.
+     */
+    private static class MappedSequence<T, R> implements Sequence<R> {
+        private final Iterator<T> iterator;
+        private final Function<? super T, ? extends R> mapper;
+
+        MappedSequence(Iterator<T> iterator, Function<? super T, ? extends R> mapper) {
+            this.iterator = iterator;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public R next() {
+            return mapper.apply(iterator.next());
+        }
+    }
+
+    /**
+     * One Sequence per filter stage, as before stages were fused.
+     */
+    private static class FilterSequence<T> implements Sequence<T> {
+        private final Iterator<T> iterator;
+        private final Predicate<? super T> filter;
+        private T next;
+        private boolean exists;
+
+        FilterSequence(Iterator<T> iterator, Predicate<? super T> filter) {
+            this.iterator = iterator;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!exists && iterator.hasNext()) {
+                T value = iterator.next();
+                if (filter.test(value)) {
+                    next = value;
+                    exists = true;
+                }
+            }
+            return exists;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            exists = false;
+            return next;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package net.dongliu.commons.sequence;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of joining two sorted lists by key: hash join and merge join, against grouping one side with a Stream
+ * and then looking up the other side.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class JoinBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private List<Integer> left;
+    private List<Integer> right;
+
+    @Setup
+    public void setup() {
+        left = IntStream.range(0, size).boxed().collect(Collectors.toList());
+        right = IntStream.range(0, size).map(i -> i / 2 * 2).boxed().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public void hashJoin(Blackhole blackhole) {
+        Sequence.of(left).hashJoin(Sequence.of(right), Function.identity(), Function.identity(), Integer::sum)
+                .forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void mergeJoin(Blackhole blackhole) {
+        Sequence.of(left).mergeJoin(Sequence.of(right), Function.identity(), Function.identity(),
+                Comparator.naturalOrder(), Integer::sum)
+                .forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void streamGrouping(Blackhole blackhole) {
+        Map<Integer, List<Integer>> map = right.stream().collect(Collectors.groupingBy(Function.identity()));
+        left.stream().flatMap(l -> map.getOrDefault(l, List.of()).stream().map(r -> l + r))
+                .forEach(blackhole::consume);
+    }
+}
@@ -0,0 +1,64 @@
+package net.dongliu.commons.sequence;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Cost of a CPU-bound map: sequential Sequence, parallel Sequence in batches, and parallel Stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ParallelBenchmark {
+    private static final int SIZE = 10_000;
+
+    @Param({"64", "1024"})
+    private int batchSize;
+
+    private List<Integer> values;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        values = IntStream.range(0, SIZE).boxed().collect(Collectors.toList());
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private static long work(int value) {
+        long hash = value;
+        for (int i = 0; i < 100; i++) {
+            hash = hash * 31 + i;
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public void sequential(Blackhole blackhole) {
+        Sequence.of(values).map(ParallelBenchmark::work).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void parallel(Blackhole blackhole) {
+        Sequence.of(values).parallel(executor, batchSize).map(ParallelBenchmark::work).sequential()
+                .forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void parallelStream(Blackhole blackhole) {
+        values.parallelStream().map(ParallelBenchmark::work).forEachOrdered(blackhole::consume);
+    }
+}
@@ -13,4 +13,5 @@ module net.dongliu.commons {
     exports net.dongliu.commons.net;
     exports net.dongliu.commons.time;
     exports net.dongliu.commons.sequence;
+    exports net.dongliu.commons.sketch;
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package net.dongliu.commons.collection;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static java.util.Objects.checkIndex;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A list of pairs, stored in columns: the first values and the second values are kept in two parallel arrays,
+ * so no Pair instance is hold for each element. {@link #get(int)} creates a new Pair for every call;
+ * use {@link #first(int)} and {@link #second(int)} to access values without allocation.
+ * The values cannot be null. This class only support appending, and is not thread-safe.
+ *
+ * @param <K> the first value type
+ * @param <V> the second value type
+ */
+public class PairColumns<K, V> extends AbstractList<Pair<K, V>> implements RandomAccess {
+    private Object[] firsts;
+    private Object[] seconds;
+    private int size;
+
+    public PairColumns() {
+        this(16);
+    }
+
+    /**
+     * @param capacity the initial capacity
+     */
+    public PairColumns(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity " + capacity + " should not be less than zero");
+        }
+        this.firsts = new Object[capacity];
+        this.seconds = new Object[capacity];
+    }
+
+    /**
+     * Append a pair of values. The values cannot be null.
+     */
+    public void add(K first, V second) {
+        requireNonNull(first);
+        requireNonNull(second);
+        if (size == firsts.length) {
+            int capacity = Math.max(16, firsts.length + (firsts.length >> 1));
+            firsts = Arrays.copyOf(firsts, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+        }
+        firsts[size] = first;
+        seconds[size] = second;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public boolean add(Pair<K, V> pair) {
+        add(pair.first(), pair.second());
+        return true;
+    }
+
+    /**
+     * The first value at index
+     */
+    @SuppressWarnings("unchecked")
+    public K first(int index) {
+        checkIndex(index, size);
+        return (K) firsts[index];
+    }
+
+    /**
+     * The second value at index
+     */
+    @SuppressWarnings("unchecked")
+    public V second(int index) {
+        checkIndex(index, size);
+        return (V) seconds[index];
+    }
+
+    /**
+     * A unmodifiable list view of the first values
+     */
+    public List<K> firsts() {
+        return new AbstractColumn<>() {
+            @Override
+            public K get(int index) {
+                return first(index);
+            }
+        };
+    }
+
+    /**
+     * A unmodifiable list view of the second values
+     */
+    public List<V> seconds() {
+        return new AbstractColumn<>() {
+            @Override
+            public V get(int index) {
+                return second(index);
+            }
+        };
+    }
+
+    private abstract class AbstractColumn<E> extends AbstractList<E> implements RandomAccess {
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    @Override
+    public Pair<K, V> get(int index) {
+        return Pair.of(first(index), second(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
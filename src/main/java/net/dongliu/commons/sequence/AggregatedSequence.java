@@ -1,30 +1,50 @@
 package net.dongliu.commons.sequence;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * A Sequence aggregate multi(maybe infinite) sub Sequences.
+ * The sub Sequences are kept in a flat deque of groups: concatenating to a AggregatedSequence appends to the deque,
+ * and a sub Sequence which is itself a AggregatedSequence is spliced into the deque when reached.
+ * So repeated concat or nested flatMap do not build a deep chain of Sequences.
  *
  * @param <T>
  */
 class AggregatedSequence<T> implements Sequence<T> {
-    private final Iterator<? extends Sequence<T>> sequences;
+    private final ArrayDeque<Iterator<? extends Sequence<T>>> groups = new ArrayDeque<>();
     private Sequence<T> current = Sequence.of();
 
     AggregatedSequence(Iterator<? extends Sequence<T>> sequences) {
-        this.sequences = sequences;
+        groups.add(sequences);
     }
 
     @Override
     public boolean hasNext() {
         while (!current.hasNext()) {
-            if (!sequences.hasNext()) {
+            var group = groups.peekFirst();
+            if (group == null) {
                 return false;
             }
-            current = requireNonNull(sequences.next());
+            if (!group.hasNext()) {
+                groups.pollFirst();
+                continue;
+            }
+            Sequence<T> sequence = requireNonNull(group.next());
+            if (sequence instanceof AggregatedSequence) {
+                var aggregated = (AggregatedSequence<T>) sequence;
+                for (var it = aggregated.groups.descendingIterator(); it.hasNext(); ) {
+                    groups.addFirst(it.next());
+                }
+                current = aggregated.current;
+            } else {
+                current = sequence;
+            }
         }
         return true;
     }
@@ -36,4 +56,26 @@ class AggregatedSequence<T> implements Sequence<T> {
         }
         return current.next();
     }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        while (hasNext()) {
+            current.forEachRemaining(action);
+        }
+    }
+
+    @Override
+    public Sequence<T> concat(Sequence<T> sequence) {
+        requireNonNull(sequence);
+        groups.addLast(new SingletonSequence<>(sequence));
+        return this;
+    }
+
+    @Override
+    public Sequence<T> concat(Collection<? extends Sequence<T>> sequences) {
+        requireNonNull(sequences);
+        groups.addLast(sequences.iterator());
+        return this;
+    }
 }
@@ -1,13 +1,18 @@
 package net.dongliu.commons.sequence;
 
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * Sequence backend by an array.
  *
  * @param <T>
  */
-class ArraySequence<T> implements Sequence<T> {
+class ArraySequence<T> implements SizedSequence<T> {
     private final T[] array;
     private final int end;
     private int index;
@@ -35,4 +40,34 @@ class ArraySequence<T> implements Sequence<T> {
         return array[index++];
     }
 
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        T[] array = this.array;
+        int end = this.end;
+        int i = index;
+        index = end;
+        for (; i < end; i++) {
+            action.accept(array[i]);
+        }
+    }
+
+    @Override
+    public long remaining() {
+        return end - index;
+    }
+
+    @Override
+    public Spliterator<T> spliterator(long limit) {
+        int begin = index;
+        index += (int) Math.min(limit, end - begin);
+        return Spliterators.spliterator(array, begin, index, Spliterator.ORDERED);
+    }
+
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.min(n, end - index);
+        index += skipped;
+        return skipped;
+    }
 }
@@ -0,0 +1,134 @@
+package net.dongliu.commons.sequence;
+
+import net.dongliu.commons.concurrent.Futures;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A Sequence map elements to futures, and keep at most maxInFlight futures outstanding.
+ * In ordered mode, values are returned in the order of upstream elements;
+ * otherwise values are returned in the order the futures complete.
+ * If any future failed, the exception is reported at the next pull, without waiting for the futures before it;
+ * a pull already waiting for the head future is woken by the failure. Then the outstanding futures are cancelled.
+ * If the upstream Sequence or the mapper throw an exception, the outstanding futures are cancelled too.
+ *
+ * @param <T> the upstream element type
+ * @param <R> the value type
+ */
+class AsyncMappedSequence<T, R> implements Sequence<R> {
+    private final Sequence<T> sequence;
+    private final Function<? super T, ? extends CompletableFuture<R>> mapper;
+    private final int maxInFlight;
+    private final boolean ordered;
+
+    // outstanding futures; in ordered mode a deque in upstream order, otherwise a set
+    private final Collection<CompletableFuture<R>> inFlight;
+    // completed futures, only used in unordered mode
+    private final BlockingQueue<CompletableFuture<R>> completed = new LinkedBlockingQueue<>();
+    // completed exceptionally when any future failed
+    private final CompletableFuture<R> failure = new CompletableFuture<>();
+    private boolean failed;
+    // the exception thrown when refilling after a value is taken, rethrown at the next pull
+    private RuntimeException pending;
+
+    AsyncMappedSequence(Sequence<T> sequence, Function<? super T, ? extends CompletableFuture<R>> mapper,
+                        int maxInFlight, boolean ordered) {
+        this.sequence = sequence;
+        this.mapper = mapper;
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+        this.inFlight = ordered ? new ArrayDeque<>() : new HashSet<>();
+    }
+
+    private void fill() {
+        try {
+            while (!failed && inFlight.size() < maxInFlight && sequence.hasNext()) {
+                CompletableFuture<R> future = requireNonNull(mapper.apply(sequence.next()));
+                inFlight.add(future);
+                future.whenComplete((r, e) -> {
+                    if (e != null) {
+                        failure.completeExceptionally(e);
+                    }
+                    if (!ordered) {
+                        completed.add(future);
+                    }
+                });
+            }
+        } catch (RuntimeException | Error e) {
+            cancel();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pending != null) {
+            var e = pending;
+            pending = null;
+            throw e;
+        }
+        fill();
+        return !inFlight.isEmpty();
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        R value;
+        try {
+            CompletableFuture<R> future;
+            if (ordered) {
+                if (failure.isDone()) {
+                    failure.join();
+                }
+                future = inFlight.iterator().next();
+                if (!future.isDone()) {
+                    CompletableFuture.anyOf(future, failure).join();
+                }
+            } else {
+                future = take();
+            }
+            value = Futures.join(future);
+            inFlight.remove(future);
+        } catch (RuntimeException e) {
+            cancel();
+            throw e;
+        }
+        try {
+            fill();
+        } catch (RuntimeException e) {
+            // do not lose the value already taken
+            pending = e;
+        }
+        return value;
+    }
+
+    private CompletableFuture<R> take() {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    private void cancel() {
+        failed = true;
+        for (var future : inFlight) {
+            future.cancel(true);
+        }
+        inFlight.clear();
+    }
+}
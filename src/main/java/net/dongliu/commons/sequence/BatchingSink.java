@@ -0,0 +1,354 @@
+package net.dongliu.commons.sequence;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A sink which collects elements into batches, and pass the batches to the flusher.
+ * A batch is flushed when it reaches the max size, or the max weight, or has waited for the max delay since its first
+ * element, whichever comes first. The flusher runs on the executor; at most maxInFlight batches are flushing at the
+ * same time, if there are more, {@link #accept(Object)} blocks until one flushing is finished.
+ * The max delay is checked by timers on the scheduler; a batch expired when maxInFlight batches are flushing is
+ * flushed as soon as one flushing is finished.
+ * <p>
+ * If the flusher throws a exception, the following accept or close throws a CompletionException wrapping it.
+ * The sink should be closed to flush the last batch, and wait for all flushes to finish.
+ * This class is thread-safe.
+ *
+ * @param <T> the element type
+ * @see Sequence#drainTo(BatchingSink)
+ */
+public class BatchingSink<T> implements Consumer<T>, AutoCloseable {
+    private final Consumer<? super List<T>> flusher;
+    private final int maxSize;
+    private final long maxWeight;
+    private final ToLongFunction<? super T> weigher;
+    private final Duration maxDelay;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final Semaphore permits;
+
+    private List<T> batch = new ArrayList<>();
+    private long weight;
+    private long batchStart;
+    // increased when a batch is taken, so timers for taken batches do nothing
+    private long generation;
+    private ScheduledFuture<?> timer;
+    // if current batch expired, and waits for a permit to flush
+    private boolean expiredPending;
+    private boolean closed;
+    private volatile Throwable failure;
+
+    private BatchingSink(Builder<T> builder) {
+        this.flusher = builder.flusher;
+        this.maxSize = builder.maxSize;
+        this.maxWeight = builder.maxWeight;
+        this.weigher = builder.weigher;
+        this.maxDelay = builder.maxDelay;
+        this.scheduler = builder.scheduler;
+        this.executor = builder.executor;
+        this.maxInFlight = builder.maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Return a builder for BatchingSink.
+     *
+     * @param flusher the function to consume batches. The batch lists should not be modified.
+     * @param <T>     the element type
+     */
+    public static <T> Builder<T> builder(Consumer<? super List<T>> flusher) {
+        return new Builder<>(requireNonNull(flusher));
+    }
+
+    /**
+     * Add one element to current batch. If the batch is full, flush it.
+     *
+     * @throws CompletionException   if a previous flush failed
+     * @throws IllegalStateException if the sink is closed
+     */
+    @Override
+    public void accept(T value) {
+        checkFailure();
+        List<T> full = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("sink already closed");
+            }
+            if (batch.isEmpty()) {
+                batchStart = System.nanoTime();
+                schedule(generation);
+            }
+            batch.add(value);
+            if (weigher != null) {
+                weight += weigher.applyAsLong(value);
+            }
+            if (batch.size() >= maxSize || weigher != null && weight >= maxWeight || expired()) {
+                full = takeBatch();
+            }
+        }
+        if (full != null) {
+            submit(full);
+        }
+    }
+
+    /**
+     * Flush current batch now, if it is not empty.
+     */
+    public void flush() {
+        checkFailure();
+        List<T> current;
+        synchronized (this) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            current = takeBatch();
+        }
+        submit(current);
+    }
+
+    /**
+     * Flush the last batch, and wait for all flushes to finish.
+     *
+     * @throws CompletionException if any flush failed
+     */
+    @Override
+    public void close() {
+        List<T> rest = null;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (!batch.isEmpty()) {
+                rest = takeBatch();
+            }
+        }
+        if (rest != null && failure == null) {
+            submit(rest);
+        }
+        acquire(maxInFlight);
+        permits.release(maxInFlight);
+        checkFailure();
+    }
+
+    // should hold the lock
+    private boolean expired() {
+        return maxDelay != null && System.nanoTime() - batchStart >= maxDelay.toNanos();
+    }
+
+    // should hold the lock
+    private List<T> takeBatch() {
+        var taken = batch;
+        batch = new ArrayList<>();
+        weight = 0;
+        generation++;
+        expiredPending = false;
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        return taken;
+    }
+
+    // should hold the lock
+    private void schedule(long generation) {
+        if (maxDelay == null) {
+            return;
+        }
+        timer = scheduler.schedule(() -> onTimer(generation), maxDelay.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Mark the batch as expired if it is still the same batch, and try to flush it.
+     */
+    private void onTimer(long generation) {
+        synchronized (this) {
+            if (this.generation != generation) {
+                return;
+            }
+            expiredPending = true;
+        }
+        flushExpired();
+    }
+
+    /**
+     * Flush the expired batch if a permit is available. This should not block, as it runs in the timer thread,
+     * or after a flush finished; if no permit, it is called again when a flushing finishes and release the permit.
+     */
+    private void flushExpired() {
+        if (!permits.tryAcquire()) {
+            return;
+        }
+        List<T> expired;
+        synchronized (this) {
+            if (!expiredPending) {
+                permits.release();
+                return;
+            }
+            expired = takeBatch();
+        }
+        try {
+            execute(expired);
+        } catch (RejectedExecutionException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    private void submit(List<T> batch) {
+        acquire(1);
+        execute(batch);
+    }
+
+    private void acquire(int count) {
+        try {
+            permits.acquire(count);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    // the permit should be already acquired
+    private void execute(List<T> batch) {
+        try {
+            executor.execute(() -> {
+                try {
+                    flusher.accept(batch);
+                } catch (Throwable e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                } finally {
+                    permits.release();
+                    if (maxDelay != null) {
+                        flushExpired();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void checkFailure() {
+        var failure = this.failure;
+        if (failure != null) {
+            throw new CompletionException(failure);
+        }
+    }
+
+    /**
+     * Builder for BatchingSink.
+     *
+     * @param <T> the element type
+     */
+    public static class Builder<T> {
+        private final Consumer<? super List<T>> flusher;
+        private int maxSize = 1000;
+        private long maxWeight = Long.MAX_VALUE;
+        private ToLongFunction<? super T> weigher = null;
+        private Duration maxDelay = null;
+        private ScheduledExecutorService scheduler = null;
+        private Executor executor = Runnable::run;
+        private int maxInFlight = 1;
+
+        private Builder(Consumer<? super List<T>> flusher) {
+            this.flusher = flusher;
+        }
+
+        /**
+         * Set the max count of elements in one batch.
+         *
+         * @param maxSize default 1000
+         * @return self
+         */
+        public Builder<T> maxSize(int maxSize) {
+            Utils.checkSize(maxSize);
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Set the max total weight of elements in one batch, for example the byte size. A batch is flushed once its
+         * weight reaches the max weight. Default there is no weight limit.
+         *
+         * @param maxWeight the max weight
+         * @param weigher   the function return the weight of element
+         * @return self
+         */
+        public Builder<T> maxWeight(long maxWeight, ToLongFunction<? super T> weigher) {
+            Utils.checkSize(maxWeight);
+            this.maxWeight = maxWeight;
+            this.weigher = requireNonNull(weigher);
+            return this;
+        }
+
+        /**
+         * Set the max time a batch can wait since its first element. Default there is no time limit.
+         * The timers run on the scheduler; if the executor is not set, batches flushed by timers are flushed in the
+         * scheduler thread.
+         *
+         * @param maxDelay  the max delay
+         * @param scheduler the scheduler to run timers
+         * @return self
+         */
+        public Builder<T> maxDelay(Duration maxDelay, ScheduledExecutorService scheduler) {
+            requireNonNull(maxDelay);
+            if (maxDelay.isNegative() || maxDelay.isZero()) {
+                throw new IllegalArgumentException("max delay should be positive, but got " + maxDelay);
+            }
+            this.maxDelay = maxDelay;
+            this.scheduler = requireNonNull(scheduler);
+            return this;
+        }
+
+        /**
+         * Set the executor to run the flusher. Default the flusher runs in the thread triggers the flush,
+         * which is the scheduler thread for batches flushed by timers,
+         * see {@link #maxDelay(Duration, ScheduledExecutorService)}.
+         *
+         * @return self
+         */
+        public Builder<T> executor(Executor executor) {
+            this.executor = requireNonNull(executor);
+            return this;
+        }
+
+        /**
+         * Set the max count of batches flushing at the same time.
+         *
+         * @param maxInFlight default 1
+         * @return self
+         */
+        public Builder<T> maxInFlight(int maxInFlight) {
+            Utils.checkSize(maxInFlight);
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Build the BatchingSink
+         */
+        public BatchingSink<T> build() {
+            return new BatchingSink<>(this);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package net.dongliu.commons.sequence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A DistinctSequence, which only remembers a bounded set of keys.
+ */
+class BoundedDistinctSequence<T> implements DistinctSequence<T> {
+    private final Sequence<T> delegate;
+    private final KeySet<T> keys;
+    private long dropped;
+
+    BoundedDistinctSequence(Sequence<T> sequence, KeySet<T> keys) {
+        this.keys = keys;
+        this.delegate = sequence.filter(value -> {
+            if (keys.add(value)) {
+                return true;
+            }
+            dropped++;
+            return false;
+        });
+    }
+
+    @Override
+    public boolean hasNext() {
+        return delegate.hasNext();
+    }
+
+    @Override
+    public T next() {
+        return delegate.next();
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        delegate.forEachRemaining(action);
+    }
+
+    @Override
+    public long dropped() {
+        return dropped;
+    }
+
+    @Override
+    public long evicted() {
+        return keys.evicted();
+    }
+
+    /**
+     * The remembered keys.
+     */
+    interface KeySet<T> {
+        /**
+         * Remember the key of the element. Return false if the key is already remembered.
+         */
+        boolean add(T value);
+
+        /**
+         * The count of keys evicted
+         */
+        long evicted();
+    }
+
+    /**
+     * Remember only the most recently seen keys.
+     */
+    static class RecentKeySet<T, E> implements KeySet<T> {
+        private final Function<? super T, E> keyMapper;
+        private final Map<E, Boolean> map;
+        private long evicted;
+
+        RecentKeySet(Function<? super T, E> keyMapper, int maxKeys) {
+            this.keyMapper = keyMapper;
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<E, Boolean> eldest) {
+                    if (size() > maxKeys) {
+                        evicted++;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public boolean add(T value) {
+            return map.put(keyMapper.apply(value), Boolean.TRUE) == null;
+        }
+
+        @Override
+        public long evicted() {
+            return evicted;
+        }
+    }
+
+    /**
+     * Remember the keys seen in a time window before the latest element time.
+     */
+    static class TimeWindowKeySet<T, E> implements KeySet<T> {
+        private final Function<? super T, E> keyMapper;
+        private final ToLongFunction<? super T> timeMapper;
+        private final long window;
+        // key to last seen time, in seen time order
+        private final LinkedHashMap<E, Long> map = new LinkedHashMap<>();
+        private long latest = Long.MIN_VALUE;
+        private long evicted;
+
+        TimeWindowKeySet(Function<? super T, E> keyMapper, ToLongFunction<? super T> timeMapper, long window) {
+            this.keyMapper = keyMapper;
+            this.timeMapper = timeMapper;
+            this.window = window;
+        }
+
+        @Override
+        public boolean add(T value) {
+            long time = timeMapper.applyAsLong(value);
+            latest = Math.max(latest, time);
+            var iterator = map.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next() >= latest - window) {
+                    break;
+                }
+                iterator.remove();
+                evicted++;
+            }
+            E key = keyMapper.apply(value);
+            Long last = map.remove(key);
+            map.put(key, last == null ? time : Math.max(last, time));
+            return last == null;
+        }
+
+        @Override
+        public long evicted() {
+            return evicted;
+        }
+    }
+
+    /**
+     * Remember keys in a bloom filter. Elements may be dropped wrongly with false positive rate.
+     * The bit positions are derived from the 64 bits hash of element by double hashing.
+     */
+    static class BloomKeySet<T> implements KeySet<T> {
+        private final ToLongFunction<? super T> hasher;
+        private final long[] bits;
+        private final long bitSize;
+        private final int hashCount;
+
+        BloomKeySet(ToLongFunction<? super T> hasher, long expectedKeys, double falsePositiveRate) {
+            this.hasher = hasher;
+            long bitSize = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bits = new long[(int) Math.min(Utils.MAX_ARRAY_SIZE, Math.max(1, (bitSize + 63) >>> 6))];
+            this.bitSize = (long) bits.length << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) this.bitSize / expectedKeys * Math.log(2)));
+        }
+
+        @Override
+        public boolean add(T value) {
+            long hash = Utils.mix64(hasher.applyAsLong(value));
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            boolean added = false;
+            for (int i = 1; i <= hashCount; i++) {
+                long combined = (h1 + (long) i * h2) & Long.MAX_VALUE;
+                long index = combined % bitSize;
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                if ((bits[word] & mask) == 0) {
+                    bits[word] |= mask;
+                    added = true;
+                }
+            }
+            return added;
+        }
+
+        @Override
+        public long evicted() {
+            return 0;
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package net.dongliu.commons.sequence;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.NoSuchElementException;
 
+/**
+ * A Sequence buffers elements into chunks. If reuse is true, the same buffer is refilled for every chunk,
+ * and the returned list is a view of the buffer, only valid until the next chunk is taken.
+ */
 class ChunkedSequence<T> implements Sequence<List<T>> {
     private final Sequence<T> sequence;
     private final int size;
+    private final boolean reuse;
 
-    public ChunkedSequence(Sequence<T> sequence, int size) {
+    private ArrayList<T> buffer;
+    private List<T> view;
+
+    ChunkedSequence(Sequence<T> sequence, int size, boolean reuse) {
         this.sequence = sequence;
         this.size = size;
+        this.reuse = reuse;
     }
 
     @Override
@@ -19,13 +30,26 @@ class ChunkedSequence<T> implements Sequence<List<T>> {
 
     @Override
     public List<T> next() {
-        var list = new ArrayList<T>(size);
-        for (int i = 0; i < size; i++) {
-            if (!sequence.hasNext()) {
-                break;
-            }
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (!reuse) {
+            var list = new ArrayList<T>(size);
+            fill(list);
+            return List.copyOf(list);
+        }
+        if (buffer == null) {
+            buffer = new ArrayList<>(size);
+            view = Collections.unmodifiableList(buffer);
+        }
+        buffer.clear();
+        fill(buffer);
+        return view;
+    }
+
+    private void fill(List<T> list) {
+        for (int i = 0; i < size && sequence.hasNext(); i++) {
             list.add(sequence.next());
         }
-        return List.copyOf(list);
     }
 }
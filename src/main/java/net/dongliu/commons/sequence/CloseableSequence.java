@@ -0,0 +1,18 @@
+package net.dongliu.commons.sequence;
+
+/**
+ * A Sequence which holds resources, such as temp files or background tasks.
+ * The resources are released when all elements are consumed; close this Sequence to release them early,
+ * if not all elements are consumed.
+ *
+ * @param <T> the element type
+ */
+public interface CloseableSequence<T> extends Sequence<T>, AutoCloseable {
+
+    /**
+     * Release the resources, and discard the elements not consumed. After closed, hasNext() return false.
+     * This method can be called multi times.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,21 @@
+package net.dongliu.commons.sequence;
+
+/**
+ * A Sequence removes duplicated elements with bounded memory, which reports how many elements are dropped, and how many
+ * remembered keys are evicted. The counts are updated when elements are taken out from this Sequence.
+ *
+ * @param <T> the element type
+ */
+public interface DistinctSequence<T> extends Sequence<T> {
+
+    /**
+     * The count of elements dropped as duplicated, till now.
+     */
+    long dropped();
+
+    /**
+     * The count of keys forgotten to keep memory bounded, till now.
+     * An element with an evicted key would not be detected as duplicated.
+     */
+    long evicted();
+}
@@ -0,0 +1,31 @@
+package net.dongliu.commons.sequence;
+
+import java.util.NoSuchElementException;
+
+/**
+ * DoubleSequence backend by an array.
+ */
+class DoubleArraySequence implements DoubleSequence {
+    private final double[] array;
+    private final int end;
+    private int index;
+
+    DoubleArraySequence(double[] array, int begin, int end) {
+        this.array = array;
+        this.end = end;
+        this.index = begin;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index < end;
+    }
+
+    @Override
+    public double nextDouble() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return array[index++];
+    }
+}
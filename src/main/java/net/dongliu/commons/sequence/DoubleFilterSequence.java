@@ -1,15 +1,15 @@
 package net.dongliu.commons.sequence;
 
 import java.util.NoSuchElementException;
-import java.util.function.Predicate;
+import java.util.function.DoublePredicate;
 
-class FilterSequence<T> implements Sequence<T> {
-    private final Sequence<T> sequence;
-    private final Predicate<? super T> filter;
-    private T value;
+class DoubleFilterSequence implements DoubleSequence {
+    private final DoubleSequence sequence;
+    private final DoublePredicate filter;
+    private double value;
     private boolean exists;
 
-    public FilterSequence(Sequence<T> sequence, Predicate<? super T> filter) {
+    DoubleFilterSequence(DoubleSequence sequence, DoublePredicate filter) {
         this.sequence = sequence;
         this.filter = filter;
     }
@@ -20,7 +20,7 @@ class FilterSequence<T> implements Sequence<T> {
             return true;
         }
         while (sequence.hasNext()) {
-            var value = sequence.next();
+            double value = sequence.nextDouble();
             if (filter.test(value)) {
                 exists = true;
                 this.value = value;
@@ -31,13 +31,11 @@ class FilterSequence<T> implements Sequence<T> {
     }
 
     @Override
-    public T next() {
+    public double nextDouble() {
         if (!hasNext()) {
             throw new NoSuchElementException();
         }
-        T value = this.value;
-        this.value = null;
-        this.exists = false;
+        exists = false;
         return value;
     }
 }
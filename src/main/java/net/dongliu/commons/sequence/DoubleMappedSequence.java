@@ -0,0 +1,23 @@
+package net.dongliu.commons.sequence;
+
+import java.util.function.DoubleUnaryOperator;
+
+class DoubleMappedSequence implements DoubleSequence {
+    private final DoubleSequence sequence;
+    private final DoubleUnaryOperator mapper;
+
+    DoubleMappedSequence(DoubleSequence sequence, DoubleUnaryOperator mapper) {
+        this.sequence = sequence;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return sequence.hasNext();
+    }
+
+    @Override
+    public double nextDouble() {
+        return mapper.applyAsDouble(sequence.nextDouble());
+    }
+}
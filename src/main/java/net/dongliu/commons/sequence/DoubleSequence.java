@@ -0,0 +1,148 @@
+package net.dongliu.commons.sequence;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.DoublePredicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A sequence of primitive double values. Like {@link Sequence}, but the values are not boxed.
+ * A DoubleSequence can be created by {@link Sequence#mapToDouble}, and be converted back to Sequence by {@link #boxed()}.
+ */
+public interface DoubleSequence extends PrimitiveIterator.OfDouble {
+
+    @Override
+    boolean hasNext();
+
+    @Override
+    double nextDouble();
+
+    /**
+     * Return the next value, boxed.
+     *
+     * @deprecated use {@link #nextDouble()} to avoid boxing
+     */
+    @Deprecated
+    @Override
+    default Double next() {
+        return nextDouble();
+    }
+
+    @Deprecated
+    @Override
+    default void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Create DoubleSequence from values, or array.
+     * This method do not do defensive copy.
+     */
+    static DoubleSequence of(double... values) {
+        requireNonNull(values);
+        return new DoubleArraySequence(values, 0, values.length);
+    }
+
+    /**
+     * map operator
+     */
+    default DoubleSequence map(DoubleUnaryOperator mapper) {
+        requireNonNull(mapper);
+        return new DoubleMappedSequence(this, mapper);
+    }
+
+    /**
+     * filter operator
+     */
+    default DoubleSequence filter(DoublePredicate filter) {
+        requireNonNull(filter);
+        return new DoubleFilterSequence(this, filter);
+    }
+
+    /**
+     * Return a sorted DoubleSequence, in ascending order.
+     * The values remained in this sequence are consumed when this method is called.
+     */
+    default DoubleSequence sorted() {
+        double[] values = toArray();
+        Arrays.sort(values);
+        return new DoubleArraySequence(values, 0, values.length);
+    }
+
+    /**
+     * Return a Sequence contains the boxed values.
+     */
+    default Sequence<Double> boxed() {
+        return new IteratorSequence<>(this);
+    }
+
+    /**
+     * reduce operator
+     *
+     * @param initialValue the initial value
+     * @param reducer      the reducer
+     * @return a value calculate by reducer
+     */
+    default double reduce(double initialValue, DoubleBinaryOperator reducer) {
+        requireNonNull(reducer);
+        double value = initialValue;
+        while (hasNext()) {
+            value = reducer.applyAsDouble(value, nextDouble());
+        }
+        return value;
+    }
+
+    /**
+     * Sum the values.
+     */
+    default double sum() {
+        double total = 0;
+        while (hasNext()) {
+            total += nextDouble();
+        }
+        return total;
+    }
+
+    /**
+     * Calculate the average of the values. If sequence is empty, return NaN.
+     */
+    default double average() {
+        double total = 0;
+        long count = 0;
+        while (hasNext()) {
+            total += nextDouble();
+            count++;
+        }
+        return total / count;
+    }
+
+    /**
+     * return the count of values
+     */
+    default long count() {
+        long count = 0;
+        while (hasNext()) {
+            nextDouble();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Collect the remained values to a new array.
+     */
+    default double[] toArray() {
+        double[] values = new double[16];
+        int size = 0;
+        while (hasNext()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = nextDouble();
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+}
@@ -1,8 +1,11 @@
 package net.dongliu.commons.sequence;
 
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+import static java.util.Objects.requireNonNull;
+
 class DropWhileSequence<T> implements Sequence<T> {
     private final Sequence<T> sequence;
     private final Predicate<? super T> predicate;
@@ -44,5 +47,14 @@ class DropWhileSequence<T> implements Sequence<T> {
         }
         return sequence.next();
     }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        if (hasNext() && firstValue != null) {
+            action.accept(next());
+        }
+        sequence.forEachRemaining(action);
+    }
 }
 
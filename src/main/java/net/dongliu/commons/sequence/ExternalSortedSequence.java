@@ -0,0 +1,188 @@
+package net.dongliu.commons.sequence;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A lazy sorted Sequence implementation, which spill to disk if elements are too many.
+ * Elements are sorted in runs of bounded size, the sorted runs are written to temp files;
+ * and then the runs are merged lazily when consuming the Sequence.
+ * If all elements can fit in one run, no temp file is used.
+ * At most {@link #MAX_FAN_IN} runs are merged at once; if there are more runs, they are merged into bigger runs first,
+ * so the count of open files is bounded.
+ */
+class ExternalSortedSequence<T> implements CloseableSequence<T> {
+    // the max count of runs merged at once
+    static final int MAX_FAN_IN = 64;
+
+    private Sequence<T> original;
+    private final Comparator<? super T> comparator;
+    private final SpillCodec<T> codec;
+    private final SpillOptions options;
+
+    private Sequence<T> delegate = null;
+    private List<SpillFile<T>> runs = List.of();
+
+    ExternalSortedSequence(Sequence<T> original, Comparator<? super T> comparator, SpillCodec<T> codec,
+                           SpillOptions options) {
+        this.original = original;
+        this.comparator = comparator;
+        this.codec = codec;
+        this.options = options;
+    }
+
+    private Sequence<T> sort() {
+        int maxInMemory = options.maxInMemory();
+        var runs = new ArrayList<SpillFile<T>>();
+        try {
+            while (true) {
+                var list = new ArrayList<T>(Math.min(maxInMemory, 1024));
+                while (list.size() < maxInMemory && original.hasNext()) {
+                    list.add(original.next());
+                }
+                list.sort(comparator);
+                if (runs.isEmpty() && !original.hasNext()) {
+                    return Sequence.of(list);
+                }
+                var run = new SpillFile<>(options, codec);
+                runs.add(run);
+                for (T value : list) {
+                    run.write(value);
+                }
+                run.finish();
+                if (!original.hasNext()) {
+                    break;
+                }
+            }
+            while (runs.size() > MAX_FAN_IN) {
+                mergePass(runs);
+            }
+        } catch (RuntimeException | Error e) {
+            runs.forEach(SpillFile::delete);
+            throw e;
+        }
+        this.runs = runs;
+        return merge(runs);
+    }
+
+    /**
+     * Merge every MAX_FAN_IN adjacent runs into one run, in place. Adjacent runs are merged so the sort keep stable.
+     */
+    private void mergePass(List<SpillFile<T>> runs) {
+        int groups = (runs.size() + MAX_FAN_IN - 1) / MAX_FAN_IN;
+        for (int i = 0; i < groups; i++) {
+            var group = runs.subList(i, Math.min(i + MAX_FAN_IN, runs.size()));
+            var merged = new SpillFile<>(options, codec);
+            // the merged run should be deleted if failed, the group runs are deleted by the caller
+            try {
+                merge(group).forEachRemaining(merged::write);
+                merged.finish();
+            } catch (RuntimeException | Error e) {
+                merged.delete();
+                throw e;
+            }
+            group.clear();
+            runs.add(i, merged);
+        }
+    }
+
+    private Sequence<T> merge(List<SpillFile<T>> runs) {
+        List<Sequence<T>> sequences = new ArrayList<>(runs.size());
+        for (var run : runs) {
+            sequences.add(run.read());
+        }
+        return new MergeSortedSequence<>(sequences, comparator);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (delegate == null) {
+            delegate = sort();
+            original = null;
+        }
+        return delegate.hasNext();
+    }
+
+    /**
+     * If the taken elements can fit in memory, use a bounded heap, instead of sort and spill.
+     * Otherwise the temp files are deleted once the taken elements are consumed.
+     */
+    @Override
+    public Sequence<T> take(long size) {
+        if (delegate == null && size > 0 && size <= options.maxInMemory()) {
+            return new TopKSequence<>(original, comparator, (int) size);
+        }
+        var taken = CloseableSequence.super.take(size);
+        return new CloseableSequence<>() {
+            @Override
+            public boolean hasNext() {
+                if (taken.hasNext()) {
+                    return true;
+                }
+                close();
+                return false;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return taken.next();
+            }
+
+            @Override
+            public void close() {
+                ExternalSortedSequence.this.close();
+            }
+        };
+    }
+
+    /**
+     * Find the min element with one pass if not sorted yet, without spill.
+     * The elements left are discarded, and the temp files are deleted after the element is taken.
+     */
+    @Override
+    public Optional<T> first() {
+        if (delegate == null) {
+            var first = new TopKSequence<>(original, comparator, 1).first();
+            close();
+            return first;
+        }
+        try {
+            return CloseableSequence.super.first();
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return delegate.next();
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        if (hasNext()) {
+            delegate.forEachRemaining(action);
+        }
+    }
+
+    @Override
+    public void close() {
+        runs.forEach(SpillFile::delete);
+        runs = List.of();
+        delegate = Sequence.of();
+        original = null;
+    }
+}
@@ -0,0 +1,169 @@
+package net.dongliu.commons.sequence;
+
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A Sequence with stateless stages(map, filter, peek) fused into one stage.
+ * Chaining a stateless operator on a FusedSequence composes the stage, instead of wrapping another Sequence,
+ * so a chain like {@code map().filter().map()} pulls from the source only once per element.
+ * Terminal operations using {@link #forEachRemaining(Consumer)} push elements through the stage in a single loop.
+ *
+ * @param <S> the source element type
+ * @param <T> the element type
+ */
+class FusedSequence<S, T> implements SizedSequence<T> {
+    private final Sequence<S> source;
+    private final Stage<S, T> stage;
+    // if every input value produce exactly one output value
+    private final boolean sizePreserving;
+
+    // for pull mode
+    private Consumer<S> sink;
+    private T value;
+    private boolean exists;
+
+    private FusedSequence(Sequence<S> source, Stage<S, T> stage, boolean sizePreserving) {
+        this.source = source;
+        this.stage = stage;
+        this.sizePreserving = sizePreserving;
+    }
+
+    /**
+     * A stateless stage, which push the result values for one input value to downstream.
+     */
+    interface Stage<S, T> {
+        /**
+         * Wrap the downstream consumer, return a consumer accept input values.
+         */
+        Consumer<S> wrap(Consumer<? super T> downstream);
+    }
+
+    static <T, R> Sequence<R> map(Sequence<T> sequence, Function<? super T, ? extends R> mapper) {
+        return fuse(sequence, downstream -> v -> downstream.accept(mapper.apply(v)), true);
+    }
+
+    static <T> Sequence<T> filter(Sequence<T> sequence, Predicate<? super T> filter) {
+        return fuse(sequence, downstream -> v -> {
+            if (filter.test(v)) {
+                downstream.accept(v);
+            }
+        }, false);
+    }
+
+    static <T> Sequence<T> peek(Sequence<T> sequence, Consumer<? super T> consumer) {
+        return fuse(sequence, downstream -> v -> {
+            consumer.accept(v);
+            downstream.accept(v);
+        }, true);
+    }
+
+    private static <T, R> Sequence<R> fuse(Sequence<T> sequence, Stage<T, R> stage, boolean sizePreserving) {
+        if (sequence instanceof FusedSequence) {
+            var fused = (FusedSequence<?, T>) sequence;
+            // if a value is already pulled out and buffered, can not compose
+            if (!fused.exists) {
+                return fused.then(stage, sizePreserving);
+            }
+        }
+        return new FusedSequence<>(sequence, stage, sizePreserving);
+    }
+
+    private <R> FusedSequence<S, R> then(Stage<T, R> next, boolean sizePreserving) {
+        Stage<S, T> stage = this.stage;
+        return new FusedSequence<>(source, downstream -> stage.wrap(next.wrap(downstream)),
+                this.sizePreserving && sizePreserving);
+    }
+
+    private Consumer<S> sink() {
+        if (sink == null) {
+            sink = stage.wrap(v -> {
+                value = v;
+                exists = true;
+            });
+        }
+        return sink;
+    }
+
+    /**
+     * If the stage is size preserving, the stage functions are only called in {@link #next()},
+     * and no value is buffered. Otherwise values are pulled and pushed through the stage until one value come out.
+     */
+    @Override
+    public boolean hasNext() {
+        if (exists) {
+            return true;
+        }
+        if (sizePreserving) {
+            return source.hasNext();
+        }
+        var sink = sink();
+        while (source.hasNext()) {
+            sink.accept(source.next());
+            if (exists) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (sizePreserving && !exists) {
+            sink().accept(source.next());
+        } else if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T value = this.value;
+        this.value = null;
+        this.exists = false;
+        return value;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        if (exists) {
+            action.accept(next());
+        }
+        source.forEachRemaining(stage.wrap(action));
+    }
+
+    @Override
+    public long remaining() {
+        if (!sizePreserving || exists) {
+            return -1;
+        }
+        return Utils.remaining(source);
+    }
+
+    @Override
+    public Spliterator<T> spliterator(long limit) {
+        return new StageSpliterator<>(((SizedSequence<S>) source).spliterator(limit), stage);
+    }
+
+    @Override
+    public long skip(long n) {
+        return ((SizedSequence<S>) source).skip(n);
+    }
+
+    @Override
+    public <R> Sequence<R> map(Function<? super T, ? extends R> mapper) {
+        return map(this, requireNonNull(mapper));
+    }
+
+    @Override
+    public Sequence<T> filter(Predicate<? super T> filter) {
+        return filter(this, requireNonNull(filter));
+    }
+
+    @Override
+    public Sequence<T> peek(Consumer<? super T> consumer) {
+        return peek(this, requireNonNull(consumer));
+    }
+}
@@ -0,0 +1,82 @@
+package net.dongliu.commons.sequence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Join two Sequence by key, using a hash table.
+ * The build side Sequence is loaded into a hash table when this Sequence is first consumed;
+ * the probe side Sequence is streamed, one element is joined with all build side elements with the same key,
+ * in the build side order.
+ *
+ * @param <T> the probe side element type
+ * @param <U> the build side element type
+ * @param <K> the key type
+ * @param <R> the result type
+ */
+class HashJoinSequence<T, U, K, R> implements Sequence<R> {
+    private final Sequence<T> probe;
+    private Sequence<U> build;
+    private final Function<? super T, ? extends K> probeKeyMapper;
+    private final Function<? super U, ? extends K> buildKeyMapper;
+    private final BiFunction<? super T, ? super U, ? extends R> combiner;
+    // if keep probe side elements without matches, in which case the combiner is called with null
+    private final boolean outer;
+
+    private Map<K, List<U>> table;
+    private T value;
+    private List<U> matches;
+    private int index;
+    // a probe side element without matches is pulled, and not returned yet
+    private boolean unmatched;
+
+    HashJoinSequence(Sequence<T> probe, Sequence<U> build, Function<? super T, ? extends K> probeKeyMapper,
+                     Function<? super U, ? extends K> buildKeyMapper,
+                     BiFunction<? super T, ? super U, ? extends R> combiner, boolean outer) {
+        this.probe = probe;
+        this.build = build;
+        this.probeKeyMapper = probeKeyMapper;
+        this.buildKeyMapper = buildKeyMapper;
+        this.combiner = combiner;
+        this.outer = outer;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (table == null) {
+            var map = new HashMap<K, List<U>>();
+            build.forEachRemaining(v -> map.computeIfAbsent(buildKeyMapper.apply(v), k -> new ArrayList<>(1)).add(v));
+            table = map;
+            build = null;
+        }
+        while (!unmatched && (matches == null || index >= matches.size())) {
+            if (!probe.hasNext()) {
+                matches = null;
+                value = null;
+                return false;
+            }
+            value = probe.next();
+            matches = table.get(probeKeyMapper.apply(value));
+            index = 0;
+            unmatched = matches == null && outer;
+        }
+        return true;
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (unmatched) {
+            unmatched = false;
+            return combiner.apply(value, null);
+        }
+        return combiner.apply(value, matches.get(index++));
+    }
+}
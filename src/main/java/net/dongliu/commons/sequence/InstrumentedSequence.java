@@ -0,0 +1,53 @@
+package net.dongliu.commons.sequence;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A Sequence which records statistics for the map, filter, flatMap and peek stages chained on it:
+ * element counts in and out of every stage, and the time spent in the functions passed to the stages.
+ * {@link #take(long)} also returns a InstrumentedSequence, other operators return ordinary Sequences,
+ * and stages after them are not recorded.
+ * The statistics can be got by {@link #report()} at any time; a {@link PipelineListener} also receives the report
+ * once, when the last recorded stage is exhausted, when {@link #first()} returns, or when the Sequence is closed.
+ * If the pipeline ends with other short-circuit operations, close the Sequence to send the report.
+ *
+ * @param <T> the element type
+ */
+public interface InstrumentedSequence<T> extends CloseableSequence<T> {
+
+    /**
+     * Return a snapshot of the statistics till now.
+     */
+    PipelineReport report();
+
+    @Override
+    <R> InstrumentedSequence<R> map(Function<? super T, ? extends R> mapper);
+
+    @Override
+    InstrumentedSequence<T> filter(Predicate<? super T> filter);
+
+    @Override
+    <R> InstrumentedSequence<R> flatMap(Function<? super T, ? extends Sequence<R>> mapper);
+
+    @Override
+    InstrumentedSequence<T> peek(Consumer<? super T> consumer);
+
+    @Override
+    InstrumentedSequence<T> take(long size);
+
+    /**
+     * Return the first element, and then send the report to the listener if not sent yet.
+     * Unlike closing, the remaining elements can still be consumed.
+     */
+    @Override
+    Optional<T> first();
+
+    /**
+     * Finish the pipeline, and send the report to the listener if not sent yet.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,31 @@
+package net.dongliu.commons.sequence;
+
+import java.util.NoSuchElementException;
+
+/**
+ * IntSequence backend by an array.
+ */
+class IntArraySequence implements IntSequence {
+    private final int[] array;
+    private final int end;
+    private int index;
+
+    IntArraySequence(int[] array, int begin, int end) {
+        this.array = array;
+        this.end = end;
+        this.index = begin;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index < end;
+    }
+
+    @Override
+    public int nextInt() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return array[index++];
+    }
+}
@@ -0,0 +1,41 @@
+package net.dongliu.commons.sequence;
+
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+
+class IntFilterSequence implements IntSequence {
+    private final IntSequence sequence;
+    private final IntPredicate filter;
+    private int value;
+    private boolean exists;
+
+    IntFilterSequence(IntSequence sequence, IntPredicate filter) {
+        this.sequence = sequence;
+        this.filter = filter;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (exists) {
+            return true;
+        }
+        while (sequence.hasNext()) {
+            int value = sequence.nextInt();
+            if (filter.test(value)) {
+                exists = true;
+                this.value = value;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int nextInt() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        exists = false;
+        return value;
+    }
+}
@@ -0,0 +1,23 @@
+package net.dongliu.commons.sequence;
+
+import java.util.function.IntUnaryOperator;
+
+class IntMappedSequence implements IntSequence {
+    private final IntSequence sequence;
+    private final IntUnaryOperator mapper;
+
+    IntMappedSequence(IntSequence sequence, IntUnaryOperator mapper) {
+        this.sequence = sequence;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return sequence.hasNext();
+    }
+
+    @Override
+    public int nextInt() {
+        return mapper.applyAsInt(sequence.nextInt());
+    }
+}
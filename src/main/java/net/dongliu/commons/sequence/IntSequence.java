@@ -0,0 +1,148 @@
+package net.dongliu.commons.sequence;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.function.IntPredicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A sequence of primitive int values. Like {@link Sequence}, but the values are not boxed.
+ * A IntSequence can be created by {@link Sequence#mapToInt}, and be converted back to Sequence by {@link #boxed()}.
+ */
+public interface IntSequence extends PrimitiveIterator.OfInt {
+
+    @Override
+    boolean hasNext();
+
+    @Override
+    int nextInt();
+
+    /**
+     * Return the next value, boxed.
+     *
+     * @deprecated use {@link #nextInt()} to avoid boxing
+     */
+    @Deprecated
+    @Override
+    default Integer next() {
+        return nextInt();
+    }
+
+    @Deprecated
+    @Override
+    default void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Create IntSequence from values, or array.
+     * This method do not do defensive copy.
+     */
+    static IntSequence of(int... values) {
+        requireNonNull(values);
+        return new IntArraySequence(values, 0, values.length);
+    }
+
+    /**
+     * map operator
+     */
+    default IntSequence map(IntUnaryOperator mapper) {
+        requireNonNull(mapper);
+        return new IntMappedSequence(this, mapper);
+    }
+
+    /**
+     * filter operator
+     */
+    default IntSequence filter(IntPredicate filter) {
+        requireNonNull(filter);
+        return new IntFilterSequence(this, filter);
+    }
+
+    /**
+     * Return a sorted IntSequence, in ascending order.
+     * The values remained in this sequence are consumed when this method is called.
+     */
+    default IntSequence sorted() {
+        int[] values = toArray();
+        Arrays.sort(values);
+        return new IntArraySequence(values, 0, values.length);
+    }
+
+    /**
+     * Return a Sequence contains the boxed values.
+     */
+    default Sequence<Integer> boxed() {
+        return new IteratorSequence<>(this);
+    }
+
+    /**
+     * reduce operator
+     *
+     * @param initialValue the initial value
+     * @param reducer      the reducer
+     * @return a value calculate by reducer
+     */
+    default int reduce(int initialValue, IntBinaryOperator reducer) {
+        requireNonNull(reducer);
+        int value = initialValue;
+        while (hasNext()) {
+            value = reducer.applyAsInt(value, nextInt());
+        }
+        return value;
+    }
+
+    /**
+     * Sum the values. The sum is calculated as long, so it would not overflow for int values.
+     */
+    default long sum() {
+        long total = 0;
+        while (hasNext()) {
+            total += nextInt();
+        }
+        return total;
+    }
+
+    /**
+     * Calculate the average of the values. If sequence is empty, return NaN.
+     */
+    default double average() {
+        long total = 0;
+        long count = 0;
+        while (hasNext()) {
+            total += nextInt();
+            count++;
+        }
+        return (double) total / count;
+    }
+
+    /**
+     * return the count of values
+     */
+    default long count() {
+        long count = 0;
+        while (hasNext()) {
+            nextInt();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Collect the remained values to a new array.
+     */
+    default int[] toArray() {
+        int[] values = new int[16];
+        int size = 0;
+        while (hasNext()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = nextInt();
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+}
@@ -1,6 +1,7 @@
 package net.dongliu.commons.sequence;
 
 import java.util.Iterator;
+import java.util.function.Consumer;
 
 /**
  * A Sequence wrap a Iterator.
@@ -24,5 +25,9 @@ class IteratorSequence<T> implements Sequence<T> {
         return iterator.next();
     }
 
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        iterator.forEachRemaining(action);
+    }
 
 }
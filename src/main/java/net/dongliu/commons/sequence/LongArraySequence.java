@@ -0,0 +1,31 @@
+package net.dongliu.commons.sequence;
+
+import java.util.NoSuchElementException;
+
+/**
+ * LongSequence backend by an array.
+ */
+class LongArraySequence implements LongSequence {
+    private final long[] array;
+    private final int end;
+    private int index;
+
+    LongArraySequence(long[] array, int begin, int end) {
+        this.array = array;
+        this.end = end;
+        this.index = begin;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index < end;
+    }
+
+    @Override
+    public long nextLong() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return array[index++];
+    }
+}
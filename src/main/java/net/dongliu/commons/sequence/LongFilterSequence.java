@@ -0,0 +1,41 @@
+package net.dongliu.commons.sequence;
+
+import java.util.NoSuchElementException;
+import java.util.function.LongPredicate;
+
+class LongFilterSequence implements LongSequence {
+    private final LongSequence sequence;
+    private final LongPredicate filter;
+    private long value;
+    private boolean exists;
+
+    LongFilterSequence(LongSequence sequence, LongPredicate filter) {
+        this.sequence = sequence;
+        this.filter = filter;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (exists) {
+            return true;
+        }
+        while (sequence.hasNext()) {
+            long value = sequence.nextLong();
+            if (filter.test(value)) {
+                exists = true;
+                this.value = value;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long nextLong() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        exists = false;
+        return value;
+    }
+}
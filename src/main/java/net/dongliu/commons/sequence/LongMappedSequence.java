@@ -0,0 +1,23 @@
+package net.dongliu.commons.sequence;
+
+import java.util.function.LongUnaryOperator;
+
+class LongMappedSequence implements LongSequence {
+    private final LongSequence sequence;
+    private final LongUnaryOperator mapper;
+
+    LongMappedSequence(LongSequence sequence, LongUnaryOperator mapper) {
+        this.sequence = sequence;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return sequence.hasNext();
+    }
+
+    @Override
+    public long nextLong() {
+        return mapper.applyAsLong(sequence.nextLong());
+    }
+}
@@ -0,0 +1,148 @@
+package net.dongliu.commons.sequence;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+import java.util.function.LongPredicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A sequence of primitive long values. Like {@link Sequence}, but the values are not boxed.
+ * A LongSequence can be created by {@link Sequence#mapToLong}, and be converted back to Sequence by {@link #boxed()}.
+ */
+public interface LongSequence extends PrimitiveIterator.OfLong {
+
+    @Override
+    boolean hasNext();
+
+    @Override
+    long nextLong();
+
+    /**
+     * Return the next value, boxed.
+     *
+     * @deprecated use {@link #nextLong()} to avoid boxing
+     */
+    @Deprecated
+    @Override
+    default Long next() {
+        return nextLong();
+    }
+
+    @Deprecated
+    @Override
+    default void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Create LongSequence from values, or array.
+     * This method do not do defensive copy.
+     */
+    static LongSequence of(long... values) {
+        requireNonNull(values);
+        return new LongArraySequence(values, 0, values.length);
+    }
+
+    /**
+     * map operator
+     */
+    default LongSequence map(LongUnaryOperator mapper) {
+        requireNonNull(mapper);
+        return new LongMappedSequence(this, mapper);
+    }
+
+    /**
+     * filter operator
+     */
+    default LongSequence filter(LongPredicate filter) {
+        requireNonNull(filter);
+        return new LongFilterSequence(this, filter);
+    }
+
+    /**
+     * Return a sorted LongSequence, in ascending order.
+     * The values remained in this sequence are consumed when this method is called.
+     */
+    default LongSequence sorted() {
+        long[] values = toArray();
+        Arrays.sort(values);
+        return new LongArraySequence(values, 0, values.length);
+    }
+
+    /**
+     * Return a Sequence contains the boxed values.
+     */
+    default Sequence<Long> boxed() {
+        return new IteratorSequence<>(this);
+    }
+
+    /**
+     * reduce operator
+     *
+     * @param initialValue the initial value
+     * @param reducer      the reducer
+     * @return a value calculate by reducer
+     */
+    default long reduce(long initialValue, LongBinaryOperator reducer) {
+        requireNonNull(reducer);
+        long value = initialValue;
+        while (hasNext()) {
+            value = reducer.applyAsLong(value, nextLong());
+        }
+        return value;
+    }
+
+    /**
+     * Sum the values.
+     */
+    default long sum() {
+        long total = 0;
+        while (hasNext()) {
+            total += nextLong();
+        }
+        return total;
+    }
+
+    /**
+     * Calculate the average of the values. If sequence is empty, return NaN.
+     */
+    default double average() {
+        long total = 0;
+        long count = 0;
+        while (hasNext()) {
+            total += nextLong();
+            count++;
+        }
+        return (double) total / count;
+    }
+
+    /**
+     * return the count of values
+     */
+    default long count() {
+        long count = 0;
+        while (hasNext()) {
+            nextLong();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Collect the remained values to a new array.
+     */
+    default long[] toArray() {
+        long[] values = new long[16];
+        int size = 0;
+        while (hasNext()) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = nextLong();
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+}
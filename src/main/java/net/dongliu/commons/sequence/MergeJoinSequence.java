@@ -0,0 +1,124 @@
+package net.dongliu.commons.sequence;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Join two Sequence by key, both Sequences should be already sorted by key in ascending order.
+ * Only the right side elements with the same key are buffered, so this works with very large inputs.
+ *
+ * @param <T> the left side element type
+ * @param <U> the right side element type
+ * @param <K> the key type
+ * @param <R> the result type
+ */
+class MergeJoinSequence<T, U, K, R> implements Sequence<R> {
+    private final Sequence<T> left;
+    private final Sequence<U> right;
+    private final Function<? super T, ? extends K> leftKeyMapper;
+    private final Function<? super U, ? extends K> rightKeyMapper;
+    private final Comparator<? super K> comparator;
+    private final BiFunction<? super T, ? super U, ? extends R> combiner;
+    // if keep left side elements without matches, in which case the combiner is called with null
+    private final boolean outer;
+
+    // the current group of right side elements with the same key
+    private final List<U> group = new ArrayList<>();
+    private K groupKey;
+    private boolean groupExists;
+    // the first right side element after the current group
+    private U pending;
+    private boolean pendingExists;
+
+    private T value;
+    private List<U> matches;
+    private int index;
+    private boolean unmatched;
+
+    MergeJoinSequence(Sequence<T> left, Sequence<U> right, Function<? super T, ? extends K> leftKeyMapper,
+                      Function<? super U, ? extends K> rightKeyMapper, Comparator<? super K> comparator,
+                      BiFunction<? super T, ? super U, ? extends R> combiner, boolean outer) {
+        this.left = left;
+        this.right = right;
+        this.leftKeyMapper = leftKeyMapper;
+        this.rightKeyMapper = rightKeyMapper;
+        this.comparator = comparator;
+        this.combiner = combiner;
+        this.outer = outer;
+    }
+
+    /**
+     * Skip right side elements with key less than the key, and load the next group.
+     */
+    private void loadGroup(K key) {
+        group.clear();
+        groupExists = false;
+        while (pendingExists || right.hasNext()) {
+            U first;
+            if (pendingExists) {
+                first = pending;
+                pending = null;
+                pendingExists = false;
+            } else {
+                first = right.next();
+            }
+            K firstKey = rightKeyMapper.apply(first);
+            if (comparator.compare(firstKey, key) < 0) {
+                continue;
+            }
+            groupKey = firstKey;
+            groupExists = true;
+            group.add(first);
+            while (right.hasNext()) {
+                U next = right.next();
+                if (comparator.compare(rightKeyMapper.apply(next), firstKey) != 0) {
+                    pending = next;
+                    pendingExists = true;
+                    break;
+                }
+                group.add(next);
+            }
+            return;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!unmatched && (matches == null || index >= matches.size())) {
+            if (!left.hasNext()) {
+                matches = null;
+                value = null;
+                return false;
+            }
+            value = left.next();
+            K key = leftKeyMapper.apply(value);
+            if (!groupExists || comparator.compare(groupKey, key) < 0) {
+                loadGroup(key);
+            }
+            if (groupExists && comparator.compare(groupKey, key) == 0) {
+                matches = group;
+            } else {
+                matches = null;
+            }
+            index = 0;
+            unmatched = matches == null && outer;
+        }
+        return true;
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (unmatched) {
+            unmatched = false;
+            return combiner.apply(value, null);
+        }
+        return combiner.apply(value, matches.get(index++));
+    }
+}
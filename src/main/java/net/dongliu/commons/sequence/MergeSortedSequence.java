@@ -0,0 +1,131 @@
+package net.dongliu.commons.sequence;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A Sequence merges multi sorted Sequences, using a binary heap of the head elements.
+ * When one element is taken, the head of its Sequence replace the heap top and sift down in place,
+ * so each element costs O(log k) comparisons, with O(k) memory.
+ * For equal elements, the one from the former Sequence comes first.
+ * If distinct is set, only the first one of equal elements is kept.
+ *
+ * @param <T> the element type
+ */
+class MergeSortedSequence<T> implements Sequence<T> {
+    private List<? extends Sequence<T>> sequences;
+    private final Comparator<? super T> comparator;
+    private final boolean distinct;
+
+    private Head<T>[] heap;
+    private int size;
+    // the last returned element, for distinct mode
+    private T last;
+    private boolean returned;
+
+    MergeSortedSequence(List<? extends Sequence<T>> sequences, Comparator<? super T> comparator) {
+        this(sequences, comparator, false);
+    }
+
+    MergeSortedSequence(List<? extends Sequence<T>> sequences, Comparator<? super T> comparator, boolean distinct) {
+        this.sequences = sequences;
+        this.comparator = comparator;
+        this.distinct = distinct;
+    }
+
+    private void init() {
+        @SuppressWarnings("unchecked")
+        var heap = (Head<T>[]) new Head<?>[sequences.size()];
+        this.heap = heap;
+        for (int i = 0; i < sequences.size(); i++) {
+            var sequence = sequences.get(i);
+            if (sequence.hasNext()) {
+                heap[size++] = new Head<>(sequence, i, sequence.next());
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+        sequences = null;
+    }
+
+    private int compare(Head<T> h1, Head<T> h2) {
+        int c = comparator.compare(h1.value, h2.value);
+        return c != 0 ? c : Integer.compare(h1.index, h2.index);
+    }
+
+    private void siftDown(int i) {
+        var head = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && compare(heap[right], heap[child]) < 0) {
+                child = right;
+            }
+            if (compare(head, heap[child]) <= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = head;
+    }
+
+    /**
+     * Take the top element, and move the top Sequence forward.
+     */
+    private T pollTop() {
+        var head = heap[0];
+        T value = head.value;
+        if (head.sequence.hasNext()) {
+            head.value = head.sequence.next();
+        } else {
+            heap[0] = heap[--size];
+            heap[size] = null;
+        }
+        if (size > 0) {
+            siftDown(0);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (heap == null) {
+            init();
+        }
+        if (distinct && returned) {
+            while (size > 0 && comparator.compare(heap[0].value, last) == 0) {
+                pollTop();
+            }
+        }
+        return size > 0;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T value = pollTop();
+        if (distinct) {
+            last = value;
+            returned = true;
+        }
+        return value;
+    }
+
+    private static class Head<T> {
+        private final Sequence<T> sequence;
+        private final int index;
+        private T value;
+
+        private Head(Sequence<T> sequence, int index, T value) {
+            this.sequence = sequence;
+            this.index = index;
+            this.value = value;
+        }
+    }
+}
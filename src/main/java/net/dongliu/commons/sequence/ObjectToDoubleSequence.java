@@ -0,0 +1,26 @@
+package net.dongliu.commons.sequence;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A DoubleSequence, with values calculated from the elements of a Sequence.
+ */
+class ObjectToDoubleSequence<T> implements DoubleSequence {
+    private final Sequence<T> sequence;
+    private final ToDoubleFunction<? super T> mapper;
+
+    ObjectToDoubleSequence(Sequence<T> sequence, ToDoubleFunction<? super T> mapper) {
+        this.sequence = sequence;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return sequence.hasNext();
+    }
+
+    @Override
+    public double nextDouble() {
+        return mapper.applyAsDouble(sequence.next());
+    }
+}
@@ -0,0 +1,26 @@
+package net.dongliu.commons.sequence;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * A IntSequence, with values calculated from the elements of a Sequence.
+ */
+class ObjectToIntSequence<T> implements IntSequence {
+    private final Sequence<T> sequence;
+    private final ToIntFunction<? super T> mapper;
+
+    ObjectToIntSequence(Sequence<T> sequence, ToIntFunction<? super T> mapper) {
+        this.sequence = sequence;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return sequence.hasNext();
+    }
+
+    @Override
+    public int nextInt() {
+        return mapper.applyAsInt(sequence.next());
+    }
+}
@@ -0,0 +1,26 @@
+package net.dongliu.commons.sequence;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * A LongSequence, with values calculated from the elements of a Sequence.
+ */
+class ObjectToLongSequence<T> implements LongSequence {
+    private final Sequence<T> sequence;
+    private final ToLongFunction<? super T> mapper;
+
+    ObjectToLongSequence(Sequence<T> sequence, ToLongFunction<? super T> mapper) {
+        this.sequence = sequence;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return sequence.hasNext();
+    }
+
+    @Override
+    public long nextLong() {
+        return mapper.applyAsLong(sequence.next());
+    }
+}
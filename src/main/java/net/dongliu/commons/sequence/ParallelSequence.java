@@ -0,0 +1,279 @@
+package net.dongliu.commons.sequence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.*;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A Sequence processed in parallel. Elements are pulled from the upstream Sequence by the calling thread, in batches;
+ * the intermediate operations and reducing of one batch run as a single task on the executor.
+ * At most a few batches are in flight at the same time, so the upstream is not consumed faster than it is processed.
+ * <p>
+ * In ordered mode(the default), results of batches are consumed in the upstream order;
+ * in unordered mode, results of batches are consumed as soon as they complete.
+ * The functions passed to operators are called concurrently, and should be thread-safe.
+ * Like Sequence, a ParallelSequence can only be consumed once.
+ *
+ * @param <T> the element type
+ */
+public class ParallelSequence<T> {
+    private final Sequence<List<Object>> batches;
+    private final Function<List<Object>, List<T>> transform;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final boolean ordered;
+
+    private ParallelSequence(Sequence<List<Object>> batches, Function<List<Object>, List<T>> transform,
+                             Executor executor, int maxInFlight, boolean ordered) {
+        this.batches = batches;
+        this.transform = transform;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.ordered = ordered;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> ParallelSequence<T> of(Sequence<T> sequence, Executor executor, int batchSize, int parallelism) {
+        var batches = (Sequence<List<Object>>) (Sequence<?>) sequence.chunked(batchSize);
+        return new ParallelSequence<>(batches, list -> (List<T>) (List<?>) list, executor, parallelism, true);
+    }
+
+    static int defaultParallelism(Executor executor) {
+        if (executor instanceof ForkJoinPool) {
+            return ((ForkJoinPool) executor).getParallelism();
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    private <R> ParallelSequence<R> with(Function<List<Object>, List<R>> transform) {
+        return new ParallelSequence<>(batches, transform, executor, maxInFlight, ordered);
+    }
+
+    /**
+     * Return a ParallelSequence, which consume the results of batches in the upstream order.
+     */
+    public ParallelSequence<T> ordered() {
+        return new ParallelSequence<>(batches, transform, executor, maxInFlight, true);
+    }
+
+    /**
+     * Return a ParallelSequence, which consume the results of batches as soon as they complete.
+     * The elements order is not kept, but a slow batch would not block the others.
+     */
+    public ParallelSequence<T> unordered() {
+        return new ParallelSequence<>(batches, transform, executor, maxInFlight, false);
+    }
+
+    /**
+     * map operator
+     */
+    public <R> ParallelSequence<R> map(Function<? super T, ? extends R> mapper) {
+        requireNonNull(mapper);
+        var transform = this.transform;
+        return with(batch -> {
+            var values = transform.apply(batch);
+            var list = new ArrayList<R>(values.size());
+            for (T value : values) {
+                list.add(mapper.apply(value));
+            }
+            return list;
+        });
+    }
+
+    /**
+     * filter operator
+     */
+    public ParallelSequence<T> filter(Predicate<? super T> filter) {
+        requireNonNull(filter);
+        var transform = this.transform;
+        return with(batch -> {
+            var values = transform.apply(batch);
+            var list = new ArrayList<T>(values.size());
+            for (T value : values) {
+                if (filter.test(value)) {
+                    list.add(value);
+                }
+            }
+            return list;
+        });
+    }
+
+    /**
+     * flat map operator
+     */
+    public <R> ParallelSequence<R> flatMap(Function<? super T, ? extends Sequence<R>> mapper) {
+        requireNonNull(mapper);
+        var transform = this.transform;
+        return with(batch -> {
+            var list = new ArrayList<R>();
+            for (T value : transform.apply(batch)) {
+                mapper.apply(value).forEach(list::add);
+            }
+            return list;
+        });
+    }
+
+    /**
+     * Run task for every batch on the executor, return a Sequence of the batch results.
+     */
+    private <P> Sequence<P> execute(Function<? super List<T>, ? extends P> task) {
+        var transform = this.transform;
+        var executor = this.executor;
+        return new AsyncMappedSequence<>(batches,
+                batch -> CompletableFuture.supplyAsync(() -> task.apply(transform.apply(batch)), executor),
+                maxInFlight, ordered);
+    }
+
+    /**
+     * Return a sequential Sequence contains the processed elements.
+     * In ordered mode, the elements are in the upstream order.
+     */
+    public Sequence<T> sequential() {
+        return execute(Function.identity()).flatMap(values -> Sequence.of(values));
+    }
+
+    /**
+     * reduce operator. Every batch is reduced to a partial result, start with a value get from initial supplier;
+     * then partial results are combined by the combiner, in the calling thread.
+     * If no elements, return initial value.
+     *
+     * @param initial  the initial value supplier, called once per batch
+     * @param reducer  the reducer
+     * @param combiner to combine the partial results
+     * @param <R>      the result value type
+     * @return a value calculate by reducer
+     */
+    public <R> R reduce(Supplier<R> initial, BiFunction<? super R, ? super T, ? extends R> reducer,
+                        BinaryOperator<R> combiner) {
+        requireNonNull(initial);
+        requireNonNull(reducer);
+        requireNonNull(combiner);
+        var partials = execute(values -> {
+            R value = initial.get();
+            for (T v : values) {
+                value = reducer.apply(value, v);
+            }
+            return value;
+        });
+        if (!partials.hasNext()) {
+            return initial.get();
+        }
+        R value = partials.next();
+        while (partials.hasNext()) {
+            value = combiner.apply(value, partials.next());
+        }
+        return value;
+    }
+
+    /**
+     * Group the element by key mapper; for per single key, reduce elements with this key to the result value.
+     * Every batch is grouped and reduced to a partial map; partial values with the same key are combined by the combiner.
+     * In ordered mode, partial maps are merged in the calling thread, in the upstream order;
+     * in unordered mode, partial maps are merged concurrently by the executor threads, into a striped map.
+     *
+     * @param keyMapper get key from element
+     * @param initial   initial value supplier for reducing
+     * @param reducer   reduce function
+     * @param combiner  to combine partial values with the same key
+     * @param <K>       the group key type
+     * @param <R>       the reduce result type
+     * @return a map contains grouped result. The is no guaranty for the map's immutability.
+     */
+    public <K, R> Map<K, R> groupAndReduce(Function<? super T, ? extends K> keyMapper, Supplier<R> initial,
+                                           BiFunction<? super R, ? super T, ? extends R> reducer,
+                                           BinaryOperator<R> combiner) {
+        requireNonNull(keyMapper);
+        requireNonNull(initial);
+        requireNonNull(reducer);
+        requireNonNull(combiner);
+        return group(values -> Sequence.of(values).groupAndReduce(keyMapper, initial, reducer), combiner);
+    }
+
+    /**
+     * Group the element by key mapper; for per single key, collect elements with this key to the result value.
+     * Every batch is grouped and collected to a partial map; partial values with the same key are combined by the combiner.
+     * In ordered mode, partial maps are merged in the calling thread, in the upstream order;
+     * in unordered mode, partial maps are merged concurrently by the executor threads, into a striped map.
+     *
+     * @param keyMapper get key from element
+     * @param collector the collector supplier
+     * @param combiner  to combine partial values with the same key
+     * @param <K>       the group key type
+     * @param <R>       the collect result type
+     * @return a map contains grouped result. The is no guaranty for the map's immutability.
+     */
+    public <K, R> Map<K, R> groupAndCollect(Function<? super T, ? extends K> keyMapper,
+                                            Supplier<? extends CollectConsumer<? super T, ? extends R>> collector,
+                                            BinaryOperator<R> combiner) {
+        requireNonNull(keyMapper);
+        requireNonNull(collector);
+        requireNonNull(combiner);
+        return group(values -> Sequence.of(values).groupAndCollect(keyMapper, collector), combiner);
+    }
+
+    /**
+     * Group the element by key mapper; for per single key, a list contains all elements with this key is constructed.
+     * In ordered mode, the elements in lists keep the upstream order.
+     *
+     * @param keyMapper get key from element
+     * @param <K>       the group key type
+     * @return a map contains grouped result. The is no guaranty for the returned map's, or the list's immutability.
+     */
+    public <K> Map<K, List<T>> groupToList(Function<? super T, ? extends K> keyMapper) {
+        requireNonNull(keyMapper);
+        return group(values -> Sequence.of(values).groupToList(keyMapper), (list1, list2) -> {
+            list1.addAll(list2);
+            return list1;
+        });
+    }
+
+    private <K, R> Map<K, R> group(Function<? super List<T>, ? extends Map<K, R>> partial,
+                                   BinaryOperator<R> combiner) {
+        if (ordered) {
+            var partials = execute(partial);
+            var map = new HashMap<K, R>();
+            while (partials.hasNext()) {
+                for (var entry : partials.next().entrySet()) {
+                    StripedMap.mergeEntry(map, entry.getKey(), entry.getValue(), combiner);
+                }
+            }
+            return map;
+        }
+        var map = new StripedMap<K, R>(maxInFlight);
+        execute(values -> {
+            map.merge(partial.apply(values), combiner);
+            return Boolean.TRUE;
+        }).count();
+        return map.toMap();
+    }
+
+    /**
+     * return the count of elements
+     */
+    public long count() {
+        return execute(values -> (long) values.size()).reduce(0L, Long::sum);
+    }
+
+    /**
+     * Sum the long values calculated by the elements.
+     *
+     * @param function the function convert elements to long values
+     */
+    public long sumLong(ToLongFunction<? super T> function) {
+        requireNonNull(function);
+        return execute(values -> {
+            long total = 0;
+            for (T value : values) {
+                total += function.applyAsLong(value);
+            }
+            return total;
+        }).reduce(0L, Long::sum);
+    }
+}
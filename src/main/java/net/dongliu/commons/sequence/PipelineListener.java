@@ -0,0 +1,15 @@
+package net.dongliu.commons.sequence;
+
+/**
+ * Listener to receive the statistics of a instrumented Sequence pipeline.
+ *
+ * @see Sequence#instrumented(String, PipelineListener)
+ */
+@FunctionalInterface
+public interface PipelineListener {
+
+    /**
+     * Called once when the pipeline is exhausted or closed, in the thread consuming or closing the Sequence.
+     */
+    void onComplete(PipelineReport report);
+}
@@ -0,0 +1,52 @@
+package net.dongliu.commons.sequence;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The statistics of a instrumented Sequence pipeline. This class is immutable.
+ */
+public class PipelineReport {
+    private final String name;
+    private final List<StageStats> stages;
+
+    PipelineReport(String name, List<StageStats> stages) {
+        this.name = requireNonNull(name);
+        this.stages = List.copyOf(stages);
+    }
+
+    /**
+     * The pipeline name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * The statistics of stages, in the order the stages are chained
+     */
+    public List<StageStats> stages() {
+        return stages;
+    }
+
+    /**
+     * The total time spent in the functions of all stages, in nanoseconds
+     */
+    public long totalNanos() {
+        long total = 0;
+        for (var stage : stages) {
+            total += stage.nanos();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        var sb = new StringBuilder("PipelineReport{name=").append(name);
+        for (var stage : stages) {
+            sb.append("\n    ").append(stage);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,21 @@
+package net.dongliu.commons.sequence;
+
+/**
+ * A Sequence which pull elements from the upstream Sequence in a background task, into a bounded buffer.
+ * Close this Sequence to stop the background task, if not all elements are consumed.
+ *
+ * @param <T> the element type
+ * @see Sequence#prefetch(int, java.util.concurrent.Executor)
+ */
+public interface PrefetchSequence<T> extends CloseableSequence<T> {
+
+    /**
+     * Stop pulling the upstream Sequence, and discard the buffered elements.
+     * If the upstream Sequence is AutoCloseable, it is closed by the background task when the task stops,
+     * or closed by this method if the task is not started yet.
+     * This method can be called from another thread, a consumer waiting for elements is woken up.
+     * After closed, hasNext() return false.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,179 @@
+package net.dongliu.commons.sequence;
+
+import net.dongliu.commons.io.Closeables;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PrefetchSequence implementation. A producer task pull the upstream Sequence on the executor,
+ * and put the elements to a bounded blocking queue; the consumer take elements from the queue.
+ * Exceptions thrown by the upstream Sequence are passed through the queue, and rethrown to the consumer.
+ * If the producer task is interrupted, the consumer get a CancellationException after the buffered elements.
+ *
+ * @param <T> the element type
+ */
+class QueuedPrefetchSequence<T> implements PrefetchSequence<T> {
+    // markers put to queue
+    private static final Object NULL = new Object();
+    private static final Object END = new Object();
+    // interval to check if closed, when the queue is full
+    private static final long OFFER_TIMEOUT_MILLIS = 50;
+
+    private final Sequence<T> upstream;
+    private final Executor executor;
+    private final BlockingQueue<Object> queue;
+    // closed by the consumer
+    private volatile boolean closed;
+    // the producer is interrupted, and the failure may not be put to the queue
+    private volatile Failure aborted;
+    private volatile boolean started;
+    private boolean finished;
+
+    private T value;
+    private boolean exists;
+
+    QueuedPrefetchSequence(Sequence<T> upstream, int bufferSize, Executor executor) {
+        this.upstream = upstream;
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    private static class Failure {
+        private final Throwable throwable;
+
+        private Failure(Throwable throwable) {
+            this.throwable = throwable;
+        }
+    }
+
+    private void produce() {
+        try {
+            while (!closed && upstream.hasNext()) {
+                T value = upstream.next();
+                put(value == null ? NULL : value);
+            }
+            put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(new CancellationException());
+        } catch (Throwable e) {
+            try {
+                put(new Failure(e));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                abort(e);
+            }
+        } finally {
+            closeUpstream();
+        }
+    }
+
+    /**
+     * Record the failure, and put it to the queue if the queue is not full, to wake up a waiting consumer.
+     * If the queue is full, the consumer find the failure after the buffered elements are taken.
+     */
+    private void abort(Throwable throwable) {
+        var failure = new Failure(throwable);
+        aborted = failure;
+        queue.offer(failure);
+    }
+
+    private void closeUpstream() {
+        if (upstream instanceof AutoCloseable) {
+            Closeables.closeQuietly((AutoCloseable) upstream);
+        }
+    }
+
+    private void put(Object value) throws InterruptedException {
+        while (!closed) {
+            if (queue.offer(value, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    private Object take() {
+        Object element = queue.poll();
+        if (element != null) {
+            return element;
+        }
+        var aborted = this.aborted;
+        if (aborted != null) {
+            return aborted;
+        }
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new CancellationException();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean hasNext() {
+        if (exists) {
+            return true;
+        }
+        if (finished || closed) {
+            return false;
+        }
+        if (!started) {
+            // if rejected, the exception is thrown, and next call would submit again
+            executor.execute(this::produce);
+            started = true;
+        }
+        Object element = take();
+        if (element == END) {
+            finished = true;
+            return false;
+        }
+        if (element instanceof Failure) {
+            finished = true;
+            var throwable = ((Failure) element).throwable;
+            if (throwable instanceof Error) {
+                throw (Error) throwable;
+            }
+            if (throwable instanceof RuntimeException) {
+                throw (RuntimeException) throwable;
+            }
+            throw new CompletionException(throwable);
+        }
+        value = element == NULL ? null : (T) element;
+        exists = true;
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T value = this.value;
+        this.value = null;
+        this.exists = false;
+        return value;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        value = null;
+        exists = false;
+        queue.clear();
+        // wake up the consumer if it is waiting in another thread
+        queue.offer(END);
+        // the producer is never started, close the upstream here
+        if (!started) {
+            started = true;
+            closeUpstream();
+        }
+    }
+}
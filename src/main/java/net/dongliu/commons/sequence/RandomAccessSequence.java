@@ -3,13 +3,17 @@ package net.dongliu.commons.sequence;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * Sequence backend by an random accessed List.
  *
  * @param <T>
  */
-class RandomAccessSequence<T> implements Sequence<T> {
+class RandomAccessSequence<T> implements SizedSequence<T> {
     private final List<T> list;
     private final int end;
     private int index;
@@ -40,6 +44,34 @@ class RandomAccessSequence<T> implements Sequence<T> {
         return list.get(index++);
     }
 
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        List<T> list = this.list;
+        int end = this.end;
+        int i = index;
+        index = end;
+        for (; i < end; i++) {
+            action.accept(list.get(i));
+        }
+    }
 
+    @Override
+    public long remaining() {
+        return end - index;
+    }
 
+    @Override
+    public Spliterator<T> spliterator(long limit) {
+        int begin = index;
+        index += (int) Math.min(limit, end - begin);
+        return new RandomAccessSpliterator<>(list, begin, index);
+    }
+
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.min(n, end - index);
+        index += skipped;
+        return skipped;
+    }
 }
@@ -0,0 +1,65 @@
+package net.dongliu.commons.sequence;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spliterator over a range of random access list, split by index.
+ */
+class RandomAccessSpliterator<T> implements Spliterator<T> {
+    private final List<T> list;
+    private int index;
+    private final int end;
+
+    RandomAccessSpliterator(List<T> list, int begin, int end) {
+        this.list = list;
+        this.index = begin;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        requireNonNull(action);
+        if (index >= end) {
+            return false;
+        }
+        action.accept(list.get(index++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        List<T> list = this.list;
+        int end = this.end;
+        int i = index;
+        index = end;
+        for (; i < end; i++) {
+            action.accept(list.get(i));
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int begin = index;
+        int mid = (begin + end) >>> 1;
+        if (begin >= mid) {
+            return null;
+        }
+        index = mid;
+        return new RandomAccessSpliterator<>(list, begin, mid);
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED;
+    }
+}
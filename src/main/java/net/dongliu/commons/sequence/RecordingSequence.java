@@ -0,0 +1,197 @@
+package net.dongliu.commons.sequence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The InstrumentedSequence implementation, which wrap the functions passed to stages with counters and timers.
+ * The stages are still built by the delegate Sequence, so stateless stages are fused as usual.
+ *
+ * @param <T> the element type
+ */
+class RecordingSequence<T> implements InstrumentedSequence<T> {
+    private final Sequence<T> delegate;
+    private final Pipeline pipeline;
+
+    private RecordingSequence(Sequence<T> delegate, Pipeline pipeline) {
+        this.delegate = delegate;
+        this.pipeline = pipeline;
+    }
+
+    static <T> InstrumentedSequence<T> of(Sequence<T> sequence, String name, PipelineListener listener) {
+        return new RecordingSequence<>(sequence, new Pipeline(name, listener));
+    }
+
+    /**
+     * The state shared by all stages of one pipeline
+     */
+    private static class Pipeline {
+        private final String name;
+        private final PipelineListener listener;
+        private final List<Stage> stages = new ArrayList<>();
+        // closed by user, the stages are not consumed any more
+        private boolean closed;
+        // the report is sent to listener
+        private boolean reported;
+
+        private Pipeline(String name, PipelineListener listener) {
+            this.name = name;
+            this.listener = listener;
+        }
+
+        private Stage addStage(String operator) {
+            var stage = new Stage(stages.size(), operator);
+            stages.add(stage);
+            return stage;
+        }
+
+        private PipelineReport report() {
+            var list = new ArrayList<StageStats>(stages.size());
+            for (var stage : stages) {
+                list.add(new StageStats(stage.index, stage.operator, stage.in, stage.out, stage.nanos));
+            }
+            return new PipelineReport(name, list);
+        }
+
+        private void complete() {
+            if (!reported) {
+                reported = true;
+                listener.onComplete(report());
+            }
+        }
+
+        private void close() {
+            closed = true;
+            complete();
+        }
+    }
+
+    private static class Stage {
+        private final int index;
+        private final String operator;
+        private long in;
+        private long out;
+        private long nanos;
+
+        private Stage(int index, String operator) {
+            this.index = index;
+            this.operator = operator;
+        }
+    }
+
+    private <R> RecordingSequence<R> with(Sequence<R> sequence) {
+        return new RecordingSequence<>(sequence, pipeline);
+    }
+
+    @Override
+    public PipelineReport report() {
+        return pipeline.report();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!pipeline.closed && delegate.hasNext()) {
+            return true;
+        }
+        pipeline.complete();
+        return false;
+    }
+
+    @Override
+    public T next() {
+        return delegate.next();
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        if (!pipeline.closed) {
+            delegate.forEachRemaining(action);
+            pipeline.complete();
+        }
+    }
+
+    @Override
+    public InstrumentedSequence<T> take(long size) {
+        return with(delegate.take(size));
+    }
+
+    /**
+     * Send the report after the first element is taken, the remaining elements can still be consumed.
+     */
+    @Override
+    public Optional<T> first() {
+        try {
+            return hasNext() ? Optional.of(next()) : Optional.empty();
+        } finally {
+            pipeline.complete();
+        }
+    }
+
+    @Override
+    public void close() {
+        pipeline.close();
+    }
+
+    @Override
+    public <R> InstrumentedSequence<R> map(Function<? super T, ? extends R> mapper) {
+        requireNonNull(mapper);
+        var stage = pipeline.addStage("map");
+        return with(delegate.map(value -> {
+            stage.in++;
+            long start = System.nanoTime();
+            R result = mapper.apply(value);
+            stage.nanos += System.nanoTime() - start;
+            stage.out++;
+            return result;
+        }));
+    }
+
+    @Override
+    public InstrumentedSequence<T> filter(Predicate<? super T> filter) {
+        requireNonNull(filter);
+        var stage = pipeline.addStage("filter");
+        return with(delegate.filter(value -> {
+            stage.in++;
+            long start = System.nanoTime();
+            boolean pass = filter.test(value);
+            stage.nanos += System.nanoTime() - start;
+            if (pass) {
+                stage.out++;
+            }
+            return pass;
+        }));
+    }
+
+    @Override
+    public <R> InstrumentedSequence<R> flatMap(Function<? super T, ? extends Sequence<R>> mapper) {
+        requireNonNull(mapper);
+        var stage = pipeline.addStage("flatMap");
+        return with(delegate.flatMap(value -> {
+            stage.in++;
+            long start = System.nanoTime();
+            Sequence<R> sequence = mapper.apply(value);
+            stage.nanos += System.nanoTime() - start;
+            return sequence.peek(v -> stage.out++);
+        }));
+    }
+
+    @Override
+    public InstrumentedSequence<T> peek(Consumer<? super T> consumer) {
+        requireNonNull(consumer);
+        var stage = pipeline.addStage("peek");
+        return with(delegate.peek(value -> {
+            stage.in++;
+            long start = System.nanoTime();
+            consumer.accept(value);
+            stage.nanos += System.nanoTime() - start;
+            stage.out++;
+        }));
+    }
+}
@@ -0,0 +1,171 @@
+package net.dongliu.commons.sequence;
+
+import net.dongliu.commons.io.Closeables;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A cached Sequence source, which can be iterated multi times. Elements are pulled from the upstream Sequence
+ * only when first needed by any reader, and recorded; later readers replay the recorded elements.
+ * Readers can consume concurrently in multi threads, they share one upstream pull.
+ * <p>
+ * If created with spill options, at most {@link SpillOptions#maxInMemory()} elements are hold in memory,
+ * elements after that are written to a temp file, and read back by every reader.
+ * Call {@link #close()} to delete the temp file and close the readers' input streams, after that the readers can not
+ * be used any more.
+ *
+ * @param <T> the element type
+ * @see Sequence#cache()
+ * @see Sequence#cache(SpillCodec, SpillOptions)
+ */
+public class Replayable<T> implements Iterable<T>, AutoCloseable {
+    // elements count pulled once, when spill to file
+    private static final int SPILL_BATCH = 1024;
+
+    private final Object lock = new Object();
+    private Sequence<T> upstream;
+    private final List<T> buffer = new ArrayList<>();
+    private final int maxInMemory;
+    private final SpillCodec<T> codec;
+    private final SpillOptions options;
+    private SpillFile<T> file;
+    // the input streams opened by readers, and not closed yet
+    private final Set<DataInputStream> inputs = new HashSet<>();
+    // count of elements written to file, and flushed
+    private long spilled;
+    private boolean closed;
+
+    Replayable(Sequence<T> upstream, SpillCodec<T> codec, SpillOptions options) {
+        this.upstream = upstream;
+        this.codec = codec;
+        this.options = options;
+        this.maxInMemory = options == null ? Integer.MAX_VALUE : options.maxInMemory();
+    }
+
+    /**
+     * Return a new Sequence, which iterate all elements from the beginning.
+     */
+    public Sequence<T> sequence() {
+        return new Reader();
+    }
+
+    @Override
+    public Sequence<T> iterator() {
+        return sequence();
+    }
+
+    /**
+     * Close the input streams of readers, and delete the temp file if exists. The upstream is not pulled any more.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            upstream = null;
+            inputs.forEach(Closeables::closeQuietly);
+            inputs.clear();
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    // should hold the lock
+    private long size() {
+        return buffer.size() + spilled;
+    }
+
+    // should hold the lock. Pull elements from upstream
+    private void fetch() {
+        if (buffer.size() < maxInMemory) {
+            buffer.add(upstream.next());
+        } else {
+            if (file == null) {
+                file = new SpillFile<>(options, codec);
+            }
+            int count = 0;
+            while (count < SPILL_BATCH && upstream.hasNext()) {
+                file.write(upstream.next());
+                count++;
+            }
+            file.flush();
+            spilled += count;
+        }
+        if (!upstream.hasNext()) {
+            upstream = null;
+            if (file != null) {
+                file.finish();
+            }
+        }
+    }
+
+    private class Reader implements Sequence<T> {
+        private long position;
+        private DataInputStream in;
+
+        @Override
+        public boolean hasNext() {
+            synchronized (lock) {
+                if (closed) {
+                    throw new IllegalStateException("replayable already closed");
+                }
+                if (position < size()) {
+                    return true;
+                }
+                if (upstream != null && upstream.hasNext()) {
+                    fetch();
+                    return true;
+                }
+                upstream = null;
+            }
+            closeInput();
+            return false;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (position < maxInMemory) {
+                synchronized (lock) {
+                    return buffer.get((int) position++);
+                }
+            }
+            if (in == null) {
+                synchronized (lock) {
+                    if (closed) {
+                        throw new IllegalStateException("replayable already closed");
+                    }
+                    in = file.open();
+                    inputs.add(in);
+                }
+            }
+            try {
+                T value = codec.read(in);
+                position++;
+                return value;
+            } catch (IOException e) {
+                closeInput();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void closeInput() {
+            if (in != null) {
+                synchronized (lock) {
+                    inputs.remove(in);
+                }
+                Closeables.closeQuietly(in);
+                in = null;
+            }
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package net.dongliu.commons.sequence;
 
+import net.dongliu.commons.sketch.HeavyHitters;
+import net.dongliu.commons.sketch.HyperLogLog;
+import net.dongliu.commons.sketch.KllSketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Random;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 
 import static java.util.Objects.requireNonNull;
 
@@ -112,4 +123,266 @@ public class SeqCollectors {
             }
         };
     }
+
+    /**
+     * Return a collector that estimate the count of distinct elements, using a HyperLogLog sketch.
+     * Elements are hashed by their spread hashCode; null element is permitted.
+     * The returned sketch can be merged with sketches from other shards, and serialized.
+     *
+     * @param precision the sketch precision, the relative error is about {@code 1.04 / sqrt(2^precision)}
+     * @param <T>       the element type
+     * @see HyperLogLog
+     */
+    public static <T> CollectConsumer<T, HyperLogLog> cardinality(int precision) {
+        var sketch = HyperLogLog.of(precision);
+        return new CollectConsumer<>() {
+            @Override
+            public void accept(T value) {
+                sketch.add(value);
+            }
+
+            @Override
+            public HyperLogLog finish() {
+                return sketch;
+            }
+        };
+    }
+
+    /**
+     * Return a collector that estimate the count of distinct elements, using a HyperLogLog sketch.
+     * The returned sketch can be merged with sketches from other shards, and serialized.
+     *
+     * @param precision the sketch precision, the relative error is about {@code 1.04 / sqrt(2^precision)}
+     * @param hasher    the function calculate well distributed 64 bits hash for element
+     * @param <T>       the element type
+     * @see HyperLogLog
+     */
+    public static <T> CollectConsumer<T, HyperLogLog> cardinality(int precision, ToLongFunction<? super T> hasher) {
+        requireNonNull(hasher);
+        var sketch = HyperLogLog.of(precision);
+        return new CollectConsumer<>() {
+            @Override
+            public void accept(T value) {
+                sketch.addHash(hasher.applyAsLong(value));
+            }
+
+            @Override
+            public HyperLogLog finish() {
+                return sketch;
+            }
+        };
+    }
+
+    /**
+     * Return a collector that estimate quantiles of the numbers, using a KLL sketch with default k.
+     * The normalized rank error is about 1.3%. Null element is not permitted.
+     * The returned sketch can be merged with sketches from other shards.
+     *
+     * @see KllSketch
+     */
+    public static CollectConsumer<Number, KllSketch> quantiles() {
+        return quantiles(KllSketch.DEFAULT_K, Number::doubleValue);
+    }
+
+    /**
+     * Return a collector that estimate quantiles of values mapped from elements, using a KLL sketch.
+     * The returned sketch can be merged with sketches from other shards.
+     *
+     * @param k           the accuracy parameter, the normalized rank error is about {@code 2.3 / k^0.97}
+     * @param valueMapper the function convert element to double value
+     * @param <T>         the element type
+     * @see KllSketch
+     */
+    public static <T> CollectConsumer<T, KllSketch> quantiles(int k, ToDoubleFunction<? super T> valueMapper) {
+        requireNonNull(valueMapper);
+        var sketch = KllSketch.of(k);
+        return new CollectConsumer<>() {
+            @Override
+            public void accept(T value) {
+                sketch.add(valueMapper.applyAsDouble(value));
+            }
+
+            @Override
+            public KllSketch finish() {
+                return sketch;
+            }
+        };
+    }
+
+    /**
+     * Return a collector that find the most frequent elements, using a space-saving sketch with fixed count of counters.
+     * Memory is bounded by the capacity, and every element costs O(1). Null element is not permitted.
+     * Use {@link HeavyHitters#top(int)} to get the top elements with count error bounds.
+     * The returned sketch can be merged with sketches from other shards.
+     *
+     * @param capacity the count of counters. To get top N elements with good accuracy, this should be several times of N.
+     * @param <T>      the element type
+     * @see HeavyHitters
+     */
+    public static <T> CollectConsumer<T, HeavyHitters<T>> heavyHitters(int capacity) {
+        var sketch = HeavyHitters.<T>of(capacity);
+        return new CollectConsumer<>() {
+            @Override
+            public void accept(T value) {
+                sketch.add(value);
+            }
+
+            @Override
+            public HeavyHitters<T> finish() {
+                return sketch;
+            }
+        };
+    }
+
+    /**
+     * Return a collector that take a uniform random sample of at most k elements, using reservoir sampling.
+     * The sample is kept in memory, and the elements count is not needed to be known.
+     * Using Algorithm L, the count of elements to skip is calculated, so random is not called for each element.
+     * The order of elements in the sample list is not specified.
+     *
+     * @param k   the sample size
+     * @param <T> the element type
+     */
+    public static <T> CollectConsumer<T, List<T>> reservoir(int k) {
+        return reservoir(k, new Random());
+    }
+
+    /**
+     * Return a collector that take a uniform random sample of at most k elements, using reservoir sampling.
+     *
+     * @param k      the sample size
+     * @param random the random to use
+     * @param <T>    the element type
+     * @see #reservoir(int)
+     */
+    public static <T> CollectConsumer<T, List<T>> reservoir(int k, Random random) {
+        Utils.checkSize(k);
+        requireNonNull(random);
+        return new CollectConsumer<>() {
+            private final List<T> sample = new ArrayList<>(Math.min(k, 1024));
+            private long count;
+            // the index of next element to put into sample, start from 1
+            private long next;
+            private double w;
+
+            @Override
+            public void accept(T value) {
+                count++;
+                if (count <= k) {
+                    sample.add(value);
+                    if (count == k) {
+                        w = Math.exp(Math.log(nextRandom()) / k);
+                        skip();
+                    }
+                } else if (count == next) {
+                    sample.set(random.nextInt(k), value);
+                    w *= Math.exp(Math.log(nextRandom()) / k);
+                    skip();
+                }
+            }
+
+            // random in (0, 1]
+            private double nextRandom() {
+                return 1 - random.nextDouble();
+            }
+
+            private void skip() {
+                double skip = Math.floor(Math.log(nextRandom()) / Math.log(1 - w));
+                next = skip >= Long.MAX_VALUE - count ? Long.MAX_VALUE : count + (long) skip + 1;
+            }
+
+            @Override
+            public List<T> finish() {
+                return sample;
+            }
+        };
+    }
+
+    /**
+     * Return a collector that take a weighted random sample of at most k elements, without replacement.
+     * The probability of a element to be chosen is proportional to its weight. Elements with zero weight are never chosen.
+     * Using Algorithm A-ExpJ, the elements to skip is calculated by accumulating weights, so random is not called
+     * for each element. The order of elements in the sample list is not specified.
+     *
+     * @param k      the sample size
+     * @param weigher the function return the weight of element, should not be negative
+     * @param <T>    the element type
+     */
+    public static <T> CollectConsumer<T, List<T>> weightedReservoir(int k, ToDoubleFunction<? super T> weigher) {
+        return weightedReservoir(k, weigher, new Random());
+    }
+
+    /**
+     * Return a collector that take a weighted random sample of at most k elements, without replacement.
+     *
+     * @param k       the sample size
+     * @param weigher the function return the weight of element, should not be negative
+     * @param random  the random to use
+     * @param <T>     the element type
+     * @see #weightedReservoir(int, ToDoubleFunction)
+     */
+    public static <T> CollectConsumer<T, List<T>> weightedReservoir(int k, ToDoubleFunction<? super T> weigher,
+                                                                    Random random) {
+        Utils.checkSize(k);
+        requireNonNull(weigher);
+        requireNonNull(random);
+        class Keyed {
+            // log of the key u^(1/w), to avoid underflow
+            private final double logKey;
+            private final T value;
+
+            private Keyed(double logKey, T value) {
+                this.logKey = logKey;
+                this.value = value;
+            }
+        }
+        return new CollectConsumer<>() {
+            private final PriorityQueue<Keyed> heap = new PriorityQueue<>(Math.min(k, 1024),
+                    Comparator.comparingDouble(e -> e.logKey));
+            // the weight to skip before next element is put into sample
+            private double skipWeight;
+
+            @Override
+            public void accept(T value) {
+                double weight = weigher.applyAsDouble(value);
+                if (weight < 0 || Double.isNaN(weight)) {
+                    throw new IllegalArgumentException("illegal weight: " + weight);
+                }
+                if (weight == 0) {
+                    return;
+                }
+                if (heap.size() < k) {
+                    heap.add(new Keyed(Math.log(nextRandom()) / weight, value));
+                    if (heap.size() == k) {
+                        skipWeight = Math.log(nextRandom()) / heap.peek().logKey;
+                    }
+                    return;
+                }
+                skipWeight -= weight;
+                if (skipWeight > 0) {
+                    return;
+                }
+                // the key should be larger than the min key
+                double minKey = Math.exp(heap.peek().logKey * weight);
+                double r = minKey + (1 - minKey) * nextRandom();
+                heap.poll();
+                heap.add(new Keyed(Math.log(r) / weight, value));
+                skipWeight = Math.log(nextRandom()) / heap.peek().logKey;
+            }
+
+            // random in (0, 1]
+            private double nextRandom() {
+                return 1 - random.nextDouble();
+            }
+
+            @Override
+            public List<T> finish() {
+                var sample = new ArrayList<T>(heap.size());
+                for (var keyed : heap) {
+                    sample.add(keyed.value);
+                }
+                return sample;
+            }
+        };
+    }
 }
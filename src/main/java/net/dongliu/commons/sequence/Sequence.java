@@ -1,16 +1,19 @@
 package net.dongliu.commons.sequence;
 
-import net.dongliu.commons.collection.Iterators;
 import net.dongliu.commons.collection.Maps;
 import net.dongliu.commons.collection.Pair;
+import net.dongliu.commons.collection.PairColumns;
 import net.dongliu.commons.collection.PartitionResult;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.*;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.Comparator.naturalOrder;
 import static java.util.Objects.requireNonNull;
@@ -18,7 +21,8 @@ import static java.util.Objects.requireNonNull;
 /**
  * A sequence of elements supporting support map and reduce operations.
  * Sequence like {@link java.util.stream.Stream}, but comes with more convenient methods.
- * Sequence not support parallel operations, so the implementation can be simpler.
+ * Sequence is processed sequentially, so the implementation can be simpler;
+ * use {@link #parallel(Executor, int)} to process a Sequence in batches on a executor.
  */
 public interface Sequence<T> extends Iterator<T> {
 
@@ -39,7 +43,50 @@ public interface Sequence<T> extends Iterator<T> {
      * The resulting sequence ends as soon as the shortest input sequence ends.
      */
     static <S, T> Sequence<Pair<S, T>> zip(Sequence<@NonNull S> s1, Sequence<@NonNull T> s2) {
-        return new ZippedSequence<>(s1, s2);
+        return new ZippedSequence<>(s1, s2, Pair::of);
+    }
+
+    /**
+     * Zip two Sequences into columns: the elements of the two sequence with the same index are stored in parallel arrays,
+     * without creating a Pair for every element.
+     * The zipping ends as soon as the shortest input sequence ends.
+     */
+    static <S, T> PairColumns<S, T> zipToColumns(Sequence<@NonNull S> s1, Sequence<@NonNull T> s2) {
+        requireNonNull(s1);
+        requireNonNull(s2);
+        var columns = new PairColumns<S, T>();
+        while (s1.hasNext() && s2.hasNext()) {
+            columns.add(s1.next(), s2.next());
+        }
+        return columns;
+    }
+
+    /**
+     * Merge multi Sequences, each already sorted by the comparator, into one sorted Sequence.
+     * The Sequences are merged lazily using a heap of head elements, in O(n log k) time, and O(k) memory.
+     * For equal elements, the one from the former Sequence comes first.
+     *
+     * @param sequences  the sorted Sequences
+     * @param comparator the comparator the Sequences are sorted by
+     */
+    static <T> Sequence<T> mergeSorted(Collection<? extends Sequence<T>> sequences, Comparator<? super T> comparator) {
+        return mergeSorted(sequences, comparator, false);
+    }
+
+    /**
+     * Merge multi Sequences, each already sorted by the comparator, into one sorted Sequence.
+     * The Sequences are merged lazily using a heap of head elements, in O(n log k) time, and O(k) memory.
+     * For equal elements, the one from the former Sequence comes first.
+     *
+     * @param sequences  the sorted Sequences
+     * @param comparator the comparator the Sequences are sorted by
+     * @param distinct   if true, only the first one of elements equal by the comparator is kept
+     */
+    static <T> Sequence<T> mergeSorted(Collection<? extends Sequence<T>> sequences, Comparator<? super T> comparator,
+                                       boolean distinct) {
+        requireNonNull(sequences);
+        requireNonNull(comparator);
+        return new MergeSortedSequence<>(List.copyOf(sequences), comparator, distinct);
     }
 
     /**
@@ -198,7 +245,70 @@ public interface Sequence<T> extends Iterator<T> {
         if (!hasNext()) {
             return of();
         }
-        return new MappedSequence<>(this, requireNonNull(mapper));
+        return FusedSequence.map(this, requireNonNull(mapper));
+    }
+
+    /**
+     * Map elements to futures, and return a Sequence of the future values, in the order of elements.
+     * At most maxInFlight futures are outstanding: elements are mapped ahead while taking values, and taking a value
+     * waits for its future to complete. If any future fails, the exception is thrown as a
+     * {@link java.util.concurrent.CompletionException} at the next take after the failure, or wakes the take waiting
+     * for the head future, even if the failed future is not the head one; and the outstanding futures are cancelled.
+     * The failure is not reported before the next take.
+     * If the mapper or this Sequence throws an exception, the exception is thrown directly,
+     * and the outstanding futures are cancelled too.
+     *
+     * @param mapper      map element to a future
+     * @param maxInFlight the max count of outstanding futures
+     */
+    default <R> Sequence<R> mapAsync(Function<? super T, ? extends CompletableFuture<R>> mapper, int maxInFlight) {
+        requireNonNull(mapper);
+        Utils.checkSize(maxInFlight);
+        if (!hasNext()) {
+            return of();
+        }
+        return new AsyncMappedSequence<>(this, mapper, maxInFlight, true);
+    }
+
+    /**
+     * Map elements to futures, and return a Sequence of the future values, in the order the futures complete.
+     * At most maxInFlight futures are outstanding. If any future fails, the outstanding futures are cancelled, and the
+     * exception is thrown as a {@link java.util.concurrent.CompletionException}.
+     * If the mapper or this Sequence throws an exception, the exception is thrown directly,
+     * and the outstanding futures are cancelled too.
+     *
+     * @param mapper      map element to a future
+     * @param maxInFlight the max count of outstanding futures
+     */
+    default <R> Sequence<R> mapAsyncUnordered(Function<? super T, ? extends CompletableFuture<R>> mapper,
+                                              int maxInFlight) {
+        requireNonNull(mapper);
+        Utils.checkSize(maxInFlight);
+        if (!hasNext()) {
+            return of();
+        }
+        return new AsyncMappedSequence<>(this, mapper, maxInFlight, false);
+    }
+
+    /**
+     * map elements to int values, return a IntSequence, which operates on primitive values without boxing.
+     */
+    default IntSequence mapToInt(ToIntFunction<? super T> mapper) {
+        return new ObjectToIntSequence<>(this, requireNonNull(mapper));
+    }
+
+    /**
+     * map elements to long values, return a LongSequence, which operates on primitive values without boxing.
+     */
+    default LongSequence mapToLong(ToLongFunction<? super T> mapper) {
+        return new ObjectToLongSequence<>(this, requireNonNull(mapper));
+    }
+
+    /**
+     * map elements to double values, return a DoubleSequence, which operates on primitive values without boxing.
+     */
+    default DoubleSequence mapToDouble(ToDoubleFunction<? super T> mapper) {
+        return new ObjectToDoubleSequence<>(this, requireNonNull(mapper));
     }
 
     /**
@@ -208,7 +318,7 @@ public interface Sequence<T> extends Iterator<T> {
         if (!hasNext()) {
             return of();
         }
-        return new FilterSequence<>(this, requireNonNull(filter));
+        return FusedSequence.filter(this, requireNonNull(filter));
     }
 
     /**
@@ -233,7 +343,78 @@ public interface Sequence<T> extends Iterator<T> {
             return of();
         }
         Set<E> set = new HashSet<>();
-        return new FilterSequence<>(this, v -> set.add(keyMapper.apply(v)));
+        return filter(v -> set.add(keyMapper.apply(v)));
+    }
+
+    /**
+     * Return a sequence do not contains duplicated elements, judged only by the most recently seen keys.
+     * This is useful for streams where duplicated elements are close to each other.
+     * An element whose key has been evicted is not detected as duplicated.
+     *
+     * @param keyMapper function to get a element key, to judge if elements are duplicated.
+     * @param maxKeys   the max count of recently seen keys to remember
+     */
+    default <E> DistinctSequence<T> distinctByRecent(Function<? super T, E> keyMapper, int maxKeys) {
+        requireNonNull(keyMapper);
+        Utils.checkSize(maxKeys);
+        return new BoundedDistinctSequence<>(this,
+                new BoundedDistinctSequence.RecentKeySet<>(keyMapper, maxKeys));
+    }
+
+    /**
+     * Return a sequence do not contains duplicated elements, judged only by keys seen within a time window.
+     * A key is remembered till the latest element time exceeds the last time it was seen by more than window.
+     * This is useful for event streams nearly sorted by time.
+     *
+     * @param keyMapper  function to get a element key, to judge if elements are duplicated.
+     * @param timeMapper function to get the element time
+     * @param window     the time window, in the same unit as element time
+     */
+    default <E> DistinctSequence<T> distinctByWithin(Function<? super T, E> keyMapper,
+                                                     ToLongFunction<? super T> timeMapper, long window) {
+        requireNonNull(keyMapper);
+        requireNonNull(timeMapper);
+        Utils.checkCount(window);
+        return new BoundedDistinctSequence<>(this,
+                new BoundedDistinctSequence.TimeWindowKeySet<>(keyMapper, timeMapper, window));
+    }
+
+    /**
+     * Return a sequence do not contains duplicated elements, keys are remembered in a bloom filter.
+     * Memory used is fixed, about {@code -expectedKeys * ln(falsePositiveRate) / (ln2)^2} bits. When distinct keys
+     * are no more than expectedKeys, a not duplicated element is dropped wrongly with about the false positive rate.
+     * Keys are hashed by their hashCode, which has only 2^32 values, so keys with same hashCode are always judged
+     * as duplicated; with millions of distinct keys and more, this exceeds the false positive rate, use
+     * {@link #distinctByApproximateHash(ToLongFunction, long, double)} with a 64 bits hash instead.
+     *
+     * @param keyMapper         function to get a element key, to judge if elements are duplicated.
+     * @param expectedKeys      the expected count of distinct keys
+     * @param falsePositiveRate the expected false positive rate, should be in (0, 1)
+     */
+    default <E> DistinctSequence<T> distinctByApproximate(Function<? super T, E> keyMapper, long expectedKeys,
+                                                          double falsePositiveRate) {
+        requireNonNull(keyMapper);
+        return distinctByApproximateHash(v -> Utils.hashCode(keyMapper.apply(v)), expectedKeys, falsePositiveRate);
+    }
+
+    /**
+     * Return a sequence do not contains duplicated elements, keys are remembered in a bloom filter by their 64 bits hash.
+     * Elements with the same hash are judged as duplicated.
+     *
+     * @param hasher            function to get the 64 bits hash of element key
+     * @param expectedKeys      the expected count of distinct keys
+     * @param falsePositiveRate the expected false positive rate, should be in (0, 1)
+     * @see #distinctByApproximate(Function, long, double)
+     */
+    default DistinctSequence<T> distinctByApproximateHash(ToLongFunction<? super T> hasher, long expectedKeys,
+                                                          double falsePositiveRate) {
+        requireNonNull(hasher);
+        Utils.checkSize(expectedKeys);
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("false positive rate " + falsePositiveRate + " should be in (0, 1)");
+        }
+        return new BoundedDistinctSequence<>(this,
+                new BoundedDistinctSequence.BloomKeySet<>(hasher, expectedKeys, falsePositiveRate));
     }
 
     /**
@@ -252,7 +433,8 @@ public interface Sequence<T> extends Iterator<T> {
     }
 
     /**
-     * Drop first N elements
+     * Drop first N elements. If the source size is known, and there are only size-preserving stages(map, peek) after it,
+     * the elements are skipped by index, the functions of stages are not called for them.
      *
      * @param size the elements number to drop
      */
@@ -294,18 +476,15 @@ public interface Sequence<T> extends Iterator<T> {
     /**
      * Return the element at index, return empty Optional if this Sequence do not have enough elements.
      * The elements in Seq should not be null.
+     * If the size is known, the elements before index are skipped without producing them, see {@link #drop(long)}.
      *
      * @param seq the element index, start from zero
      */
     default Optional<T> at(long seq) {
-        long index = 0;
-        while (hasNext()) {
-            T value = next();
-            if (index++ == seq) {
-                return Optional.of(value);
-            }
+        if (seq < 0 || Utils.skip(this, seq) < seq || !hasNext()) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        return Optional.of(next());
     }
 
     /**
@@ -318,7 +497,43 @@ public interface Sequence<T> extends Iterator<T> {
         if (!hasNext()) {
             return of();
         }
-        return new ChunkedSequence<>(this, size);
+        return new ChunkedSequence<>(this, size, false);
+    }
+
+    /**
+     * Buffer this sequence into a sequence of lists each not exceeding the given size, like {@link #chunked(int)};
+     * but one buffer is reused for all chunks, so no list is allocated per chunk.
+     * The returned list is a read-only view of the buffer, the content changes when the next chunk is taken.
+     * Callers may only hold the list until the next call of hasNext()/next() of the returned Sequence,
+     * and should copy it if needed longer.
+     *
+     * @param size the max size for buffer
+     */
+    default Sequence<List<T>> chunkedInto(int size) {
+        Utils.checkSize(size);
+        if (!hasNext()) {
+            return of();
+        }
+        return new ChunkedSequence<>(this, size, true);
+    }
+
+    /**
+     * Return a sequence of sliding windows, each window contains size elements, and start step elements after
+     * the start of previous window. Only full windows are returned, so remained elements less than size are dropped.
+     * The windows are read-only views of one ring buffer, no list is allocated per window.
+     * Callers may only hold a window until the next call of hasNext()/next() of the returned Sequence,
+     * and should copy it if needed longer.
+     *
+     * @param size the window size
+     * @param step the distance between the starts of two adjacent windows
+     */
+    default Sequence<List<T>> windowed(int size, int step) {
+        Utils.checkSize(size);
+        Utils.checkSize(step);
+        if (!hasNext()) {
+            return of();
+        }
+        return new WindowedSequence<>(this, size, step);
     }
 
     /**
@@ -332,6 +547,25 @@ public interface Sequence<T> extends Iterator<T> {
         return new SortedSequence<>(this, comparator);
     }
 
+    /**
+     * Return a sorted Sequence, which spill elements to temp files if there are too many elements to sort in memory.
+     * Elements are sorted in runs, each run contains at most {@link SpillOptions#maxInMemory()} elements;
+     * when there are more than one run, sorted runs are written to temp files by the codec, and merged lazily
+     * when the returned Sequence is consumed. The sort is stable.
+     * The temp files are deleted when all elements are consumed, or the taken elements of {@code take(n)} are consumed,
+     * or {@code first()} returns; otherwise the returned Sequence should be closed to delete them.
+     *
+     * @param comparator the comparator to sort sequence
+     * @param codec      the codec to write elements to temp files, and read them back
+     * @param options    the spill options
+     */
+    default CloseableSequence<T> sortedBy(Comparator<? super T> comparator, SpillCodec<T> codec, SpillOptions options) {
+        requireNonNull(comparator);
+        requireNonNull(codec);
+        requireNonNull(options);
+        return new ExternalSortedSequence<>(this, comparator, codec, options);
+    }
+
     /**
      * Return a sorted Sequence, Sequence element type T should implement {@link Comparable} interface.
      * The elements should not be null, or NPE maybe thrown.
@@ -342,6 +576,132 @@ public interface Sequence<T> extends Iterator<T> {
         return sortedBy((Comparator<T>) naturalOrder());
     }
 
+    /**
+     * Return a PrefetchSequence, which pull elements from this Sequence in a background task running on the executor,
+     * into a bounded buffer, so producing and consuming elements overlap. This is useful when this Sequence is IO-bound.
+     * The background task is started when the returned Sequence is first consumed, and occupy one executor thread
+     * until all elements are pulled, or the returned Sequence is closed.
+     * Exceptions thrown by this Sequence are rethrown by the returned Sequence, in the consuming thread.
+     * If the background task is interrupted, for example by {@link java.util.concurrent.ExecutorService#shutdownNow()},
+     * the returned Sequence throw a {@link java.util.concurrent.CancellationException} after the buffered elements.
+     * After calling this method, this Sequence should not be used any more.
+     *
+     * @param bufferSize the max count of elements buffered
+     * @param executor   the executor to run the background task
+     */
+    default PrefetchSequence<T> prefetch(int bufferSize, Executor executor) {
+        Utils.checkSize(bufferSize);
+        requireNonNull(executor);
+        return new QueuedPrefetchSequence<>(this, bufferSize, executor);
+    }
+
+    /**
+     * Return a Replayable, which can be iterated multi times. Elements are pulled from this Sequence lazily,
+     * when first needed by any reader, and recorded in memory for later readers.
+     * After calling this method, this Sequence should not be used any more.
+     */
+    default Replayable<T> cache() {
+        return new Replayable<>(this, null, null);
+    }
+
+    /**
+     * Return a Replayable, which can be iterated multi times. Elements are pulled from this Sequence lazily,
+     * when first needed by any reader, and recorded for later readers.
+     * At most {@link SpillOptions#maxInMemory()} elements are hold in memory, the others are written to a temp file
+     * by the codec. The Replayable should be closed to delete the temp file.
+     * After calling this method, this Sequence should not be used any more.
+     *
+     * @param codec   the codec to write elements to temp file, and read them back
+     * @param options the spill options
+     */
+    default Replayable<T> cache(SpillCodec<T> codec, SpillOptions options) {
+        requireNonNull(codec);
+        requireNonNull(options);
+        return new Replayable<>(this, codec, options);
+    }
+
+    /**
+     * Return a InstrumentedSequence, which records element counts and time spent for the map, filter, flatMap and peek
+     * stages chained on it. The statistics can be got by {@link InstrumentedSequence#report()}.
+     * Sequences not instrumented have no overhead.
+     *
+     * @param name the pipeline name, used in report
+     */
+    default InstrumentedSequence<T> instrumented(String name) {
+        return instrumented(name, report -> {});
+    }
+
+    /**
+     * Return a InstrumentedSequence, which records element counts and time spent for the map, filter, flatMap and peek
+     * stages chained on it. The listener receives the report once, when the last recorded stage is exhausted,
+     * or the Sequence is closed; see {@link InstrumentedSequence} for short-circuit operations.
+     * Sequences not instrumented have no overhead.
+     *
+     * @param name     the pipeline name, used in report
+     * @param listener the listener to receive the report
+     */
+    default InstrumentedSequence<T> instrumented(String name, PipelineListener listener) {
+        requireNonNull(name);
+        requireNonNull(listener);
+        return RecordingSequence.of(this, name, listener);
+    }
+
+    /**
+     * Return a ParallelSequence, which pull elements from this sequence in batches, and process the batches on the executor.
+     * The returned ParallelSequence keep the elements order, call {@link ParallelSequence#unordered()} if order is not needed.
+     *
+     * @param executor  the executor to run batch tasks, {@link java.util.concurrent.ForkJoinPool#commonPool()} for example
+     * @param batchSize the max element count for one batch
+     */
+    default ParallelSequence<T> parallel(Executor executor, int batchSize) {
+        requireNonNull(executor);
+        Utils.checkSize(batchSize);
+        return ParallelSequence.of(this, executor, batchSize, ParallelSequence.defaultParallelism(executor) * 2);
+    }
+
+    /**
+     * Return a ParallelSequence, which pull elements from this sequence in batches, and process the batches on the executor.
+     * The returned ParallelSequence keep the elements order, call {@link ParallelSequence#unordered()} if order is not needed.
+     *
+     * @param executor    the executor to run batch tasks, {@link java.util.concurrent.ForkJoinPool#commonPool()} for example
+     * @param batchSize   the max element count for one batch
+     * @param parallelism the max count of batches in process at the same time
+     */
+    default ParallelSequence<T> parallel(Executor executor, int batchSize, int parallelism) {
+        requireNonNull(executor);
+        Utils.checkSize(batchSize);
+        Utils.checkSize(parallelism);
+        return ParallelSequence.of(this, executor, batchSize, parallelism);
+    }
+
+    /**
+     * Return a Sequence contains the k smallest elements by comparator, in ascending order.
+     * This is the same as {@code sortedBy(comparator).take(k)}, but only a bounded heap of k elements is kept in memory.
+     *
+     * @param k          the count of elements to take
+     * @param comparator the comparator
+     */
+    default Sequence<T> bottomK(int k, Comparator<? super T> comparator) {
+        Utils.checkCount(k);
+        requireNonNull(comparator);
+        if (k == 0) {
+            return of();
+        }
+        return new TopKSequence<>(this, comparator, k);
+    }
+
+    /**
+     * Return a Sequence contains the k largest elements by comparator, in descending order.
+     * This is {@link #maxBy(Comparator)} for k elements, only a bounded heap of k elements is kept in memory.
+     *
+     * @param k          the count of elements to take
+     * @param comparator the comparator
+     */
+    default Sequence<T> topK(int k, Comparator<? super T> comparator) {
+        requireNonNull(comparator);
+        return bottomK(k, comparator.reversed());
+    }
+
     /**
      * Consumer the remained element in this Sequence.
      *
@@ -349,16 +709,15 @@ public interface Sequence<T> extends Iterator<T> {
      */
     default void forEach(Consumer<? super T> consumer) {
         requireNonNull(consumer);
-        while (hasNext()) {
-            consumer.accept(next());
-        }
+        forEachRemaining(consumer);
     }
 
     /**
      * Return a Sequence, with has a side effect when a element is take out, it is consume by specified consumer.
+     * The consumer is not called for elements skipped without producing them, see {@link #drop(long)}.
      */
     default Sequence<T> peek(Consumer<? super T> consumer) {
-        return new PeekSequence<>(this, requireNonNull(consumer));
+        return FusedSequence.peek(this, requireNonNull(consumer));
     }
 
     /**
@@ -371,11 +730,11 @@ public interface Sequence<T> extends Iterator<T> {
      */
     default <R> R reduce(R initialValue, BiFunction<? super R, ? super T, ? extends R> reducer) {
         requireNonNull(reducer);
-        R value = initialValue;
-        while (hasNext()) {
-            value = reducer.apply(value, next());
-        }
-        return value;
+        var result = new Object() {
+            R value = initialValue;
+        };
+        forEachRemaining(v -> result.value = reducer.apply(result.value, v));
+        return result.value;
     }
 
 
@@ -387,9 +746,7 @@ public interface Sequence<T> extends Iterator<T> {
      */
     default <R> R collect(CollectConsumer<? super T, ? extends R> collectConsumer) {
         requireNonNull(collectConsumer);
-        while (hasNext()) {
-            collectConsumer.accept(next());
-        }
+        forEachRemaining(collectConsumer);
         return collectConsumer.finish();
     }
 
@@ -402,11 +759,9 @@ public interface Sequence<T> extends Iterator<T> {
      */
     default <R extends Collection<T>> R toCollection(Supplier<R> collectionSupplier) {
         requireNonNull(collectionSupplier);
-        var list = collectionSupplier.get();
-        while (hasNext()) {
-            list.add(next());
-        }
-        return list;
+        var collection = collectionSupplier.get();
+        forEachRemaining(collection::add);
+        return collection;
     }
 
     /**
@@ -475,10 +830,7 @@ public interface Sequence<T> extends Iterator<T> {
         requireNonNull(valueMapper);
 
         var map = mapSupplier.get();
-        while (hasNext()) {
-            T value = next();
-            map.put(keyMapper.apply(value), valueMapper.apply(value));
-        }
+        forEachRemaining(value -> map.put(keyMapper.apply(value), valueMapper.apply(value)));
         return map;
     }
 
@@ -510,15 +862,14 @@ public interface Sequence<T> extends Iterator<T> {
         requireNonNull(keyMapper);
         requireNonNull(reducer);
         var map = new HashMap<K, R>();
-        while (hasNext()) {
-            T value = next();
+        forEachRemaining(value -> {
             K key = keyMapper.apply(value);
             if (!map.containsKey(key)) {
                 map.put(key, reducer.apply(initial.get(), value));
             } else {
                 map.put(key, reducer.apply(map.get(key), value));
             }
-        }
+        });
         return map;
     }
 
@@ -536,11 +887,7 @@ public interface Sequence<T> extends Iterator<T> {
         requireNonNull(keyMapper);
         requireNonNull(collector);
         var map = new HashMap<K, CollectConsumer<? super T, ? extends R>>();
-        while (hasNext()) {
-            T value = next();
-            K key = keyMapper.apply(value);
-            map.computeIfAbsent(key, k -> collector.get()).accept(value);
-        }
+        forEachRemaining(value -> map.computeIfAbsent(keyMapper.apply(value), k -> collector.get()).accept(value));
         return Maps.convert(map, k -> k, CollectConsumer::finish);
     }
 
@@ -558,11 +905,7 @@ public interface Sequence<T> extends Iterator<T> {
         requireNonNull(keyMapper);
         requireNonNull(collectionSupplier);
         var map = new HashMap<K, R>();
-        while (hasNext()) {
-            T value = next();
-            K key = keyMapper.apply(value);
-            map.computeIfAbsent(key, k -> collectionSupplier.get()).add(value);
-        }
+        forEachRemaining(value -> map.computeIfAbsent(keyMapper.apply(value), k -> collectionSupplier.get()).add(value));
         return map;
     }
 
@@ -578,6 +921,235 @@ public interface Sequence<T> extends Iterator<T> {
         return groupToCollection(keyMapper, ArrayList::new);
     }
 
+    /**
+     * Group the element by key mapper; for per single key, reduce elements with this key to the result value.
+     * The grouping spill to temp files if there are too many keys to hold in memory:
+     * when the count of keys exceed {@link SpillOptions#maxInMemory()}, the keys and partial results are hash-partitioned
+     * to temp files by the codecs; the partitions are then read back one by one, and partial results with the same key
+     * are combined by the combiner, when the returned Sequence is consumed.
+     * If all keys can fit in memory, no temp file is used.
+     * The temp files are deleted when read back; close the returned Sequence to delete them if not all entries are
+     * consumed.
+     *
+     * @param keyMapper  get key from element
+     * @param initial    initial value supplier for reducing
+     * @param reducer    reduce function
+     * @param combiner   to combine partial results with the same key
+     * @param keyCodec   the codec to write keys to temp files, and read them back
+     * @param valueCodec the codec to write partial results to temp files, and read them back
+     * @param options    the spill options
+     * @param <K>        the group key type
+     * @param <R>        the reduce result type
+     * @return a lazy Sequence of key and result entries, in no particular order
+     */
+    default <K, R> CloseableSequence<Map.Entry<K, R>> groupAndReduce(Function<? super T, ? extends K> keyMapper,
+                                                                     Supplier<R> initial,
+                                                                     BiFunction<? super R, ? super T, ? extends R> reducer,
+                                                                     BinaryOperator<R> combiner,
+                                                                     SpillCodec<K> keyCodec, SpillCodec<R> valueCodec,
+                                                                     SpillOptions options) {
+        requireNonNull(keyMapper);
+        requireNonNull(initial);
+        requireNonNull(reducer);
+        requireNonNull(combiner);
+        requireNonNull(keyCodec);
+        requireNonNull(valueCodec);
+        requireNonNull(options);
+        return new SpilledGroupSequence<>(this, keyMapper, initial, reducer, combiner, keyCodec, valueCodec, options);
+    }
+
+    /**
+     * Group the element by key mapper; for per single key, a list contains all elements with this key is constructed.
+     * The grouping spill to temp files if there are too many keys to hold in memory,
+     * see {@link #groupAndReduce(Function, Supplier, BiFunction, BinaryOperator, SpillCodec, SpillCodec, SpillOptions)}.
+     * The elements in lists keep the original order.
+     *
+     * @param keyMapper get key from element
+     * @param keyCodec  the codec to write keys to temp files, and read them back
+     * @param codec     the codec to write elements to temp files, and read them back
+     * @param options   the spill options
+     * @param <K>       the group key type
+     * @return a lazy Sequence of key and list entries, in no particular order
+     */
+    default <K> CloseableSequence<Map.Entry<K, List<T>>> groupToList(Function<? super T, ? extends K> keyMapper,
+                                                                     SpillCodec<K> keyCodec, SpillCodec<T> codec,
+                                                                     SpillOptions options) {
+        requireNonNull(codec);
+        return groupAndReduce(keyMapper, ArrayList::new, (list, value) -> {
+            list.add(value);
+            return list;
+        }, (list1, list2) -> {
+            list1.addAll(list2);
+            return list1;
+        }, keyCodec, SpillCodec.list(codec), options);
+    }
+
+    /**
+     * Returns a sequence of values combined by the zipper, from the elements of this sequence and the other sequence
+     * with the same index. Unlike {@link #zip(Sequence, Sequence)}, no intermediate Pair is created.
+     * The resulting sequence ends as soon as the shortest input sequence ends.
+     *
+     * @param other  the other sequence
+     * @param zipper the function to combine elements
+     * @param <U>    other sequence element type
+     * @param <R>    the result type
+     */
+    default <U, R> Sequence<R> zipWith(Sequence<U> other, BiFunction<? super T, ? super U, ? extends R> zipper) {
+        requireNonNull(other);
+        requireNonNull(zipper);
+        return new ZippedSequence<>(this, other, zipper);
+    }
+
+    /**
+     * Inner join with other Sequence by key, using a hash table.
+     * The other Sequence is the build side, which is loaded into memory when the returned Sequence is first consumed;
+     * this Sequence is the probe side, and is streamed.
+     * For every element of this Sequence, one result is produced for each element of other Sequence with the same key.
+     * The results keep the order of this Sequence, and then the order of other Sequence.
+     *
+     * @param other          the build side Sequence, which should be the smaller one
+     * @param keyMapper      get key from element of this Sequence
+     * @param otherKeyMapper get key from element of other Sequence
+     * @param combiner       combine the matched elements to result
+     * @param <U>            other Sequence element type
+     * @param <K>            the key type
+     * @param <R>            the result type
+     */
+    default <U, K, R> Sequence<R> hashJoin(Sequence<U> other, Function<? super T, ? extends K> keyMapper,
+                                           Function<? super U, ? extends K> otherKeyMapper,
+                                           BiFunction<? super T, ? super U, ? extends R> combiner) {
+        requireNonNull(other);
+        requireNonNull(keyMapper);
+        requireNonNull(otherKeyMapper);
+        requireNonNull(combiner);
+        return new HashJoinSequence<>(this, other, keyMapper, otherKeyMapper, combiner, false);
+    }
+
+    /**
+     * Inner join with other Sequence by key, using a hash table. The matched elements are returned as Pairs.
+     * The elements should not be null.
+     *
+     * @see #hashJoin(Sequence, Function, Function, BiFunction)
+     */
+    default <U, K> Sequence<Pair<T, U>> hashJoin(Sequence<U> other, Function<? super T, ? extends K> keyMapper,
+                                                 Function<? super U, ? extends K> otherKeyMapper) {
+        return hashJoin(other, keyMapper, otherKeyMapper, Pair::of);
+    }
+
+    /**
+     * Left outer join with other Sequence by key, using a hash table.
+     * Same as {@link #hashJoin(Sequence, Function, Function, BiFunction)}, except that for elements of this Sequence
+     * without matches, one result is produced by calling the combiner with null as the second param.
+     *
+     * @param other          the build side Sequence, which should be the smaller one
+     * @param keyMapper      get key from element of this Sequence
+     * @param otherKeyMapper get key from element of other Sequence
+     * @param combiner       combine the matched elements to result. The second param is null if no matches
+     * @param <U>            other Sequence element type
+     * @param <K>            the key type
+     * @param <R>            the result type
+     */
+    default <U, K, R> Sequence<R> leftHashJoin(Sequence<U> other, Function<? super T, ? extends K> keyMapper,
+                                               Function<? super U, ? extends K> otherKeyMapper,
+                                               BiFunction<? super T, ? super U, ? extends R> combiner) {
+        requireNonNull(other);
+        requireNonNull(keyMapper);
+        requireNonNull(otherKeyMapper);
+        requireNonNull(combiner);
+        return new HashJoinSequence<>(this, other, keyMapper, otherKeyMapper, combiner, true);
+    }
+
+    /**
+     * Left outer join with other Sequence by key, using a hash table. The elements are returned as Pairs,
+     * with a empty Optional if no matches. The elements should not be null.
+     *
+     * @see #leftHashJoin(Sequence, Function, Function, BiFunction)
+     */
+    default <U, K> Sequence<Pair<T, Optional<U>>> leftHashJoin(Sequence<U> other,
+                                                               Function<? super T, ? extends K> keyMapper,
+                                                               Function<? super U, ? extends K> otherKeyMapper) {
+        return leftHashJoin(other, keyMapper, otherKeyMapper, (v, u) -> Pair.of(v, Optional.ofNullable(u)));
+    }
+
+    /**
+     * Inner join with other Sequence by key, both this Sequence and other Sequence should be already sorted by key,
+     * in ascending order of the comparator. The Sequences are merged in one pass,
+     * only the elements of other Sequence with the same key are hold in memory.
+     * For every element of this Sequence, one result is produced for each element of other Sequence with the same key.
+     * If the Sequences are not sorted, the result is undefined.
+     *
+     * @param other          the other Sequence
+     * @param keyMapper      get key from element of this Sequence
+     * @param otherKeyMapper get key from element of other Sequence
+     * @param comparator     the comparator the Sequences are sorted by
+     * @param combiner       combine the matched elements to result
+     * @param <U>            other Sequence element type
+     * @param <K>            the key type
+     * @param <R>            the result type
+     */
+    default <U, K, R> Sequence<R> mergeJoin(Sequence<U> other, Function<? super T, ? extends K> keyMapper,
+                                            Function<? super U, ? extends K> otherKeyMapper,
+                                            Comparator<? super K> comparator,
+                                            BiFunction<? super T, ? super U, ? extends R> combiner) {
+        requireNonNull(other);
+        requireNonNull(keyMapper);
+        requireNonNull(otherKeyMapper);
+        requireNonNull(comparator);
+        requireNonNull(combiner);
+        return new MergeJoinSequence<>(this, other, keyMapper, otherKeyMapper, comparator, combiner, false);
+    }
+
+    /**
+     * Inner join with other Sequence by key, both Sequences should be already sorted by key.
+     * The matched elements are returned as Pairs. The elements should not be null.
+     *
+     * @see #mergeJoin(Sequence, Function, Function, Comparator, BiFunction)
+     */
+    default <U, K> Sequence<Pair<T, U>> mergeJoin(Sequence<U> other, Function<? super T, ? extends K> keyMapper,
+                                                  Function<? super U, ? extends K> otherKeyMapper,
+                                                  Comparator<? super K> comparator) {
+        return mergeJoin(other, keyMapper, otherKeyMapper, comparator, Pair::of);
+    }
+
+    /**
+     * Left outer join with other Sequence by key, both Sequences should be already sorted by key.
+     * Same as {@link #mergeJoin(Sequence, Function, Function, Comparator, BiFunction)}, except that for elements
+     * of this Sequence without matches, one result is produced by calling the combiner with null as the second param.
+     *
+     * @param other          the other Sequence
+     * @param keyMapper      get key from element of this Sequence
+     * @param otherKeyMapper get key from element of other Sequence
+     * @param comparator     the comparator the Sequences are sorted by
+     * @param combiner       combine the matched elements to result. The second param is null if no matches
+     * @param <U>            other Sequence element type
+     * @param <K>            the key type
+     * @param <R>            the result type
+     */
+    default <U, K, R> Sequence<R> leftMergeJoin(Sequence<U> other, Function<? super T, ? extends K> keyMapper,
+                                                Function<? super U, ? extends K> otherKeyMapper,
+                                                Comparator<? super K> comparator,
+                                                BiFunction<? super T, ? super U, ? extends R> combiner) {
+        requireNonNull(other);
+        requireNonNull(keyMapper);
+        requireNonNull(otherKeyMapper);
+        requireNonNull(comparator);
+        requireNonNull(combiner);
+        return new MergeJoinSequence<>(this, other, keyMapper, otherKeyMapper, comparator, combiner, true);
+    }
+
+    /**
+     * Left outer join with other Sequence by key, both Sequences should be already sorted by key.
+     * The elements are returned as Pairs, with a empty Optional if no matches. The elements should not be null.
+     *
+     * @see #leftMergeJoin(Sequence, Function, Function, Comparator, BiFunction)
+     */
+    default <U, K> Sequence<Pair<T, Optional<U>>> leftMergeJoin(Sequence<U> other,
+                                                                Function<? super T, ? extends K> keyMapper,
+                                                                Function<? super U, ? extends K> otherKeyMapper,
+                                                                Comparator<? super K> comparator) {
+        return leftMergeJoin(other, keyMapper, otherKeyMapper, comparator, (v, u) -> Pair.of(v, Optional.ofNullable(u)));
+    }
+
     /**
      * Partition the elements by predicate, and then do reducer for both Seq of elements.
      *
@@ -590,17 +1162,18 @@ public interface Sequence<T> extends Iterator<T> {
                                                       BiFunction<? super R, ? super T, ? extends R> reducer) {
         requireNonNull(predicate);
         requireNonNull(reducer);
-        R matched = initial.get();
-        R missed = initial.get();
-        while (hasNext()) {
-            T value = next();
+        var result = new Object() {
+            R matched = initial.get();
+            R missed = initial.get();
+        };
+        forEachRemaining(value -> {
             if (predicate.test(value)) {
-                matched = reducer.apply(matched, value);
+                result.matched = reducer.apply(result.matched, value);
             } else {
-                missed = reducer.apply(missed, value);
+                result.missed = reducer.apply(result.missed, value);
             }
-        }
-        return new PartitionResult<>(matched, missed);
+        });
+        return new PartitionResult<>(result.matched, result.missed);
     }
 
     /**
@@ -617,14 +1190,13 @@ public interface Sequence<T> extends Iterator<T> {
         requireNonNull(supplier);
         R matched = supplier.get();
         R missed = supplier.get();
-        while (hasNext()) {
-            T value = next();
+        forEachRemaining(value -> {
             if (predicate.test(value)) {
                 matched.add(value);
             } else {
                 missed.add(value);
             }
-        }
+        });
         return new PartitionResult<>(matched, missed);
     }
 
@@ -695,15 +1267,52 @@ public interface Sequence<T> extends Iterator<T> {
     }
 
     /**
-     * return the count of elements
+     * Pass all elements to the BatchingSink, and then close the sink, which flush the last batch,
+     * and wait for all flushes to finish.
+     *
+     * @param sink the sink
+     * @throws java.util.concurrent.CompletionException if any flush failed
+     */
+    default void drainTo(BatchingSink<? super T> sink) {
+        requireNonNull(sink);
+        try {
+            forEachRemaining(sink);
+        } catch (Throwable e) {
+            try {
+                sink.close();
+            } catch (Throwable t) {
+                e.addSuppressed(t);
+            }
+            throw e;
+        }
+        sink.close();
+    }
+
+    /**
+     * Take a uniform random sample of at most k elements, using reservoir sampling.
+     * Only the sample is kept in memory. The order of elements in the returned list is not specified.
+     *
+     * @param k the sample size
+     * @see SeqCollectors#reservoir(int)
+     */
+    default List<T> sample(int k) {
+        return collect(SeqCollectors.reservoir(k));
+    }
+
+    /**
+     * return the count of elements. If the size is known, the elements are skipped without producing them,
+     * see {@link #drop(long)}.
      */
     default long count() {
-        long count = 0;
-        while (hasNext()) {
-            count++;
-            next();
+        long remaining = Utils.remaining(this);
+        if (remaining >= 0) {
+            return Utils.skip(this, remaining);
         }
-        return count;
+        var counter = new Object() {
+            long count;
+        };
+        forEachRemaining(v -> counter.count++);
+        return counter.count;
     }
 
     /**
@@ -716,14 +1325,15 @@ public interface Sequence<T> extends Iterator<T> {
         if (!hasNext()) {
             return Optional.empty();
         }
-        T max = next();
-        while (hasNext()) {
-            T value = next();
-            if (comparator.compare(max, value) < 0) {
-                max = value;
+        var result = new Object() {
+            T max = next();
+        };
+        forEachRemaining(value -> {
+            if (comparator.compare(result.max, value) < 0) {
+                result.max = value;
             }
-        }
-        return Optional.of(max);
+        });
+        return Optional.of(result.max);
     }
 
     /**
@@ -746,14 +1356,15 @@ public interface Sequence<T> extends Iterator<T> {
         if (!hasNext()) {
             return Optional.empty();
         }
-        T min = next();
-        while (hasNext()) {
-            T value = next();
-            if (comparator.compare(min, value) > 0) {
-                min = value;
+        var result = new Object() {
+            T min = next();
+        };
+        forEachRemaining(value -> {
+            if (comparator.compare(result.min, value) > 0) {
+                result.min = value;
             }
-        }
-        return Optional.of(min);
+        });
+        return Optional.of(result.min);
     }
 
     /**
@@ -772,11 +1383,11 @@ public interface Sequence<T> extends Iterator<T> {
      * @param function the function convert elements to int values
      */
     default int sumInt(ToIntFunction<T> function) {
-        int total = 0;
-        while (hasNext()) {
-            total += function.applyAsInt(next());
-        }
-        return total;
+        var result = new Object() {
+            int total;
+        };
+        forEachRemaining(value -> result.total += function.applyAsInt(value));
+        return result.total;
     }
 
     /**
@@ -785,11 +1396,11 @@ public interface Sequence<T> extends Iterator<T> {
      * @param function the function convert elements to long values
      */
     default long sumLong(ToLongFunction<T> function) {
-        long total = 0;
-        while (hasNext()) {
-            total += function.applyAsLong(next());
-        }
-        return total;
+        var result = new Object() {
+            long total;
+        };
+        forEachRemaining(value -> result.total += function.applyAsLong(value));
+        return result.total;
     }
 
     /**
@@ -798,11 +1409,11 @@ public interface Sequence<T> extends Iterator<T> {
      * @param function the function convert elements to double values
      */
     default double sumDouble(ToDoubleFunction<T> function) {
-        double total = 0;
-        while (hasNext()) {
-            total += function.applyAsDouble(next());
-        }
-        return total;
+        var result = new Object() {
+            double total;
+        };
+        forEachRemaining(value -> result.total += function.applyAsDouble(value));
+        return result.total;
     }
 
     /**
@@ -811,13 +1422,15 @@ public interface Sequence<T> extends Iterator<T> {
      * @param function the function convert elements to long values
      */
     default double averageLong(ToLongFunction<T> function) {
-        long total = 0;
-        long count = 0;
-        while (hasNext()) {
-            total += function.applyAsLong(next());
-            count++;
-        }
-        return (double) total / count;
+        var result = new Object() {
+            long total;
+            long count;
+        };
+        forEachRemaining(value -> {
+            result.total += function.applyAsLong(value);
+            result.count++;
+        });
+        return (double) result.total / result.count;
     }
 
     /**
@@ -826,13 +1439,15 @@ public interface Sequence<T> extends Iterator<T> {
      * @param function the function convert elements to double float values
      */
     default double averageDouble(ToDoubleFunction<T> function) {
-        double total = 0;
-        long count = 0;
-        while (hasNext()) {
-            total += function.applyAsDouble(next());
-            count++;
-        }
-        return total / count;
+        var result = new Object() {
+            double total;
+            long count;
+        };
+        forEachRemaining(value -> {
+            result.total += function.applyAsDouble(value);
+            result.count++;
+        });
+        return result.total / result.count;
     }
 
     /**
@@ -849,17 +1464,22 @@ public interface Sequence<T> extends Iterator<T> {
     /**
      * Return the last element of Sequence. If sequence is empty, return empty Optional.
      * The element in sequence should not be null.
+     * If the size is known, the elements before the last one are skipped without producing them, see {@link #drop(long)}.
      */
     default Optional<T> last() {
+        long remaining = Utils.remaining(this);
+        if (remaining > 1) {
+            Utils.skip(this, remaining - 1);
+        }
         if (!hasNext()) {
             return Optional.empty();
         }
 
-        T value = next();
-        while (hasNext()) {
-            value = next();
-        }
-        return Optional.of(value);
+        var result = new Object() {
+            T value = next();
+        };
+        forEachRemaining(value -> result.value = value);
+        return Optional.of(result.value);
     }
 
     /**
@@ -883,14 +1503,15 @@ public interface Sequence<T> extends Iterator<T> {
      */
     default Optional<T> findLast(Predicate<? super T> predicate) {
         requireNonNull(predicate);
-        T value = null;
-        while (hasNext()) {
-            T current = next();
+        var result = new Object() {
+            T value;
+        };
+        forEachRemaining(current -> {
             if (predicate.test(current)) {
-                value = requireNonNull(current);
+                result.value = requireNonNull(current);
             }
-        }
-        return Optional.ofNullable(value);
+        });
+        return Optional.ofNullable(result.value);
     }
 
     /**
@@ -944,12 +1565,15 @@ public interface Sequence<T> extends Iterator<T> {
 
     /**
      * Return a Stream that wrap this sequence.
+     * If this sequence is backed by an array or a random access list, and only size preserving operators are applied,
+     * the stream knows its size, and splits by index when run in parallel;
+     * otherwise the stream splits by taking batches of elements, with batch size growing.
      */
     default Stream<T> asStream() {
-        if (!hasNext()) {
+        if (Utils.remaining(this) < 0 && !hasNext()) {
             return Stream.empty();
         }
-        return Iterators.stream(this);
+        return StreamSupport.stream(Utils.spliterator(this), false);
     }
 
 }
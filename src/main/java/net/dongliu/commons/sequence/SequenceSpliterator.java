@@ -0,0 +1,62 @@
+package net.dongliu.commons.sequence;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spliterator over a Sequence with unknown size. Splits take batches of elements into arrays,
+ * the batch size doubles every split, so that both short and long sequences can split well.
+ */
+class SequenceSpliterator<T> implements Spliterator<T> {
+    private static final int INITIAL_BATCH = 1 << 10;
+    private static final int MAX_BATCH = 1 << 25;
+
+    private final Sequence<T> sequence;
+    private int batch = INITIAL_BATCH;
+
+    SequenceSpliterator(Sequence<T> sequence) {
+        this.sequence = sequence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        requireNonNull(action);
+        if (!sequence.hasNext()) {
+            return false;
+        }
+        action.accept(sequence.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        sequence.forEachRemaining(action);
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (!sequence.hasNext()) {
+            return null;
+        }
+        Object[] array = new Object[batch];
+        int size = 0;
+        do {
+            array[size++] = sequence.next();
+        } while (size < array.length && sequence.hasNext());
+        batch = Math.min(batch << 1, MAX_BATCH);
+        return Spliterators.spliterator(array, 0, size, ORDERED);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+}
@@ -1,6 +1,9 @@
 package net.dongliu.commons.sequence;
 
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * A Sequence only has one element
@@ -26,4 +29,12 @@ class SingletonSequence<T> implements Sequence<T> {
         index++;
         return value;
     }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        if (hasNext()) {
+            action.accept(next());
+        }
+    }
 }
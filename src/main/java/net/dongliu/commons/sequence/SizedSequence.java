@@ -0,0 +1,36 @@
+package net.dongliu.commons.sequence;
+
+import java.util.Spliterator;
+
+/**
+ * A Sequence which may know the count of its remaining elements, can hand them out as a SIZED Spliterator,
+ * and can skip elements without producing them.
+ * Stages over other sequences implement this interface when they preserve size, and know the size only if the
+ * upstream does. Size-preserving stages skip by skipping their upstream, so the functions of skipped elements
+ * are not called.
+ *
+ * @param <T> the element type
+ */
+interface SizedSequence<T> extends Sequence<T> {
+
+    /**
+     * The count of remaining elements, or -1 if unknown.
+     */
+    long remaining();
+
+    /**
+     * Return a SIZED Spliterator over at most limit remaining elements. These elements are consumed from this Sequence.
+     * This method should only be called when {@link #remaining()} is not -1.
+     *
+     * @param limit the max count of elements
+     */
+    Spliterator<T> spliterator(long limit);
+
+    /**
+     * Skip at most n remaining elements, return the count of elements skipped.
+     * This method should only be called when {@link #remaining()} is not -1.
+     *
+     * @param n the max count of elements to skip
+     */
+    long skip(long n);
+}
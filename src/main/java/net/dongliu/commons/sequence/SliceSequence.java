@@ -1,8 +1,10 @@
 package net.dongliu.commons.sequence;
 
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
-class SliceSequence<T> implements Sequence<T> {
+class SliceSequence<T> implements SizedSequence<T> {
     private final Sequence<T> sequence;
     private final long from;
     private final long to;
@@ -14,22 +16,22 @@ class SliceSequence<T> implements Sequence<T> {
         this.to = to;
     }
 
-    @Override
-    public boolean hasNext() {
-        while (index < from) {
-            if (!sequence.hasNext()) {
-                return false;
-            }
-            if (index >= to) {
+    /**
+     * Skip the elements before from if not skipped yet, return false if no elements left in the slice.
+     */
+    private boolean skipToFrom() {
+        if (index < from) {
+            index += Utils.skip(sequence, Math.min(from, to) - index);
+            if (index < from) {
                 return false;
             }
-            sequence.next();
-            index++;
-        }
-        if (index >= to) {
-            return false;
         }
-        return sequence.hasNext();
+        return index < to;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return skipToFrom() && sequence.hasNext();
     }
 
     @Override
@@ -41,4 +43,34 @@ class SliceSequence<T> implements Sequence<T> {
         index++;
         return value;
     }
+
+    @Override
+    public long remaining() {
+        long remaining = Utils.remaining(sequence);
+        if (remaining < 0) {
+            return -1;
+        }
+        return Math.max(0, Math.min(remaining - Math.max(0, from - index), to - Math.max(from, index)));
+    }
+
+    @Override
+    public Spliterator<T> spliterator(long limit) {
+        if (!hasNext()) {
+            return Spliterators.emptySpliterator();
+        }
+        long size = Math.min(limit, to - index);
+        index += Math.min(size, Utils.remaining(sequence));
+        return ((SizedSequence<T>) sequence).spliterator(size);
+    }
+
+    @Override
+    public long skip(long n) {
+        // do not probe the upstream with hasNext, which may produce an element
+        if (!skipToFrom()) {
+            return 0;
+        }
+        long skipped = Utils.skip(sequence, Math.min(n, to - index));
+        index += skipped;
+        return skipped;
+    }
 }
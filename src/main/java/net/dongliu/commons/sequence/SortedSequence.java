@@ -3,6 +3,9 @@ package net.dongliu.commons.sequence;
 import java.util.Comparator;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * A lazy sorted Sequence implementation
@@ -40,6 +43,17 @@ class SortedSequence<T> implements Sequence<T> {
         return delegate.hasNext();
     }
 
+    /**
+     * Sort and then take first n elements, can be done with a bounded heap.
+     */
+    @Override
+    public Sequence<T> take(long size) {
+        if (delegate == null && size > 0 && size <= Utils.MAX_ARRAY_SIZE) {
+            return new TopKSequence<>(original, comparator, (int) size);
+        }
+        return Sequence.super.take(size);
+    }
+
     @Override
     public T next() {
         if (!hasNext()) {
@@ -47,4 +61,12 @@ class SortedSequence<T> implements Sequence<T> {
         }
         return delegate.next();
     }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        if (hasNext()) {
+            delegate.forEachRemaining(action);
+        }
+    }
 }
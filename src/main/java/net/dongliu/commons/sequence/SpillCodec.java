@@ -0,0 +1,86 @@
+package net.dongliu.commons.sequence;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Codec to write values to temp files, and read them back, when a Sequence operation spill data to disk.
+ *
+ * @param <T> the value type
+ */
+public interface SpillCodec<T> {
+
+    /**
+     * Write one value.
+     */
+    void write(DataOutput out, T value) throws IOException;
+
+    /**
+     * Read one value, which is written by {@link #write(DataOutput, Object)}.
+     */
+    T read(DataInput in) throws IOException;
+
+    /**
+     * Return a codec for lists, which write the list size, and then the elements by the element codec.
+     * The lists read back are mutable.
+     *
+     * @param codec the element codec
+     * @param <T>   the element type
+     */
+    static <T> SpillCodec<List<T>> list(SpillCodec<T> codec) {
+        requireNonNull(codec);
+        return new SpillCodec<>() {
+            @Override
+            public void write(DataOutput out, List<T> list) throws IOException {
+                out.writeInt(list.size());
+                for (T value : list) {
+                    codec.write(out, value);
+                }
+            }
+
+            @Override
+            public List<T> read(DataInput in) throws IOException {
+                int size = in.readInt();
+                var list = new ArrayList<T>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(codec.read(in));
+                }
+                return list;
+            }
+        };
+    }
+
+    /**
+     * Return a codec using java serialization. This is convenient, but much slower than a hand-written codec.
+     *
+     * @param <T> the value type
+     */
+    static <T extends Serializable> SpillCodec<T> serializable() {
+        return new SpillCodec<>() {
+            @Override
+            public void write(DataOutput out, T value) throws IOException {
+                var bos = new ByteArrayOutputStream();
+                try (var oos = new ObjectOutputStream(bos)) {
+                    oos.writeObject(value);
+                }
+                out.writeInt(bos.size());
+                out.write(bos.toByteArray());
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T read(DataInput in) throws IOException {
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                try (var ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+                    return (T) ois.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,154 @@
+package net.dongliu.commons.sequence;
+
+import net.dongliu.commons.io.Closeables;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+/**
+ * A temp file to spill values to. Values are appended to the file, and then read back as a Sequence.
+ * The file is deleted once all values are read back; if not so, the owner should call {@link #delete()}.
+ *
+ * @param <T> the value type
+ */
+class SpillFile<T> {
+    private final Path path;
+    private final SpillCodec<T> codec;
+    private final DataOutputStream out;
+    private DataInputStream in;
+    private long count;
+
+    SpillFile(SpillOptions options, SpillCodec<T> codec) {
+        this.codec = codec;
+        try {
+            var directory = options.tempDirectory();
+            if (directory.isPresent()) {
+                path = Files.createTempFile(directory.get(), "sequence-spill-", ".tmp");
+            } else {
+                path = Files.createTempFile("sequence-spill-", ".tmp");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        } catch (IOException e) {
+            deleteQuietly(path);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Append one value
+     */
+    void write(T value) {
+        try {
+            codec.write(out, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        count++;
+    }
+
+    /**
+     * Flush the values written, so they can be read by streams from {@link #open()}.
+     */
+    void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Open a new input stream read from the beginning of file, while values may still be appended.
+     * Only values already flushed can be read. The caller should close the stream.
+     */
+    DataInputStream open() {
+        try {
+            return new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The count of values written
+     */
+    long count() {
+        return count;
+    }
+
+    /**
+     * Finish writing, and close the output stream, so no file descriptor is hold until the file is read.
+     */
+    void finish() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            delete();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Finish writing, and return a Sequence read all values back. This method should be called only once.
+     */
+    Sequence<T> read() {
+        finish();
+        try {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        } catch (IOException e) {
+            delete();
+            throw new UncheckedIOException(e);
+        }
+        if (count == 0) {
+            delete();
+        }
+        return new Sequence<>() {
+            private long remain = count;
+
+            @Override
+            public boolean hasNext() {
+                return remain > 0;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T value;
+                try {
+                    value = codec.read(in);
+                } catch (IOException e) {
+                    remain = 0;
+                    delete();
+                    throw new UncheckedIOException(e);
+                }
+                if (--remain == 0) {
+                    delete();
+                }
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Close the streams, and delete the file. This method can be called multi times.
+     */
+    void delete() {
+        Closeables.closeQuietly(out, in);
+        deleteQuietly(path);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignore) {
+        }
+    }
+}
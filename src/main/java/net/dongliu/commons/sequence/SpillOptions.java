@@ -0,0 +1,51 @@
+package net.dongliu.commons.sequence;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Options for Sequence operations which spill data to temp files, when there are too many values to hold in memory.
+ * This class is immutable.
+ */
+public class SpillOptions {
+    private final int maxInMemory;
+    private final Path tempDirectory;
+
+    private SpillOptions(int maxInMemory, Path tempDirectory) {
+        this.maxInMemory = maxInMemory;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Create spill options, temp files are created in the default temp directory.
+     *
+     * @param maxInMemory the max count of values hold in memory, before spill to disk
+     */
+    public static SpillOptions of(int maxInMemory) {
+        Utils.checkSize(maxInMemory);
+        return new SpillOptions(maxInMemory, null);
+    }
+
+    /**
+     * Create one new SpillOptions, replace the temp directory.
+     */
+    public SpillOptions withTempDirectory(Path tempDirectory) {
+        return new SpillOptions(maxInMemory, requireNonNull(tempDirectory));
+    }
+
+    /**
+     * The max count of values hold in memory, before spill to disk
+     */
+    public int maxInMemory() {
+        return maxInMemory;
+    }
+
+    /**
+     * The directory to create temp files. If not set, the default temp directory is used.
+     */
+    public Optional<Path> tempDirectory() {
+        return Optional.ofNullable(tempDirectory);
+    }
+}
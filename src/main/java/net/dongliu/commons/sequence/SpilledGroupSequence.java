@@ -0,0 +1,259 @@
+package net.dongliu.commons.sequence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A lazy grouped Sequence implementation, which spill to disk if there are too many keys.
+ * Elements are reduced into a in-memory map; when the map contains more keys than the budget,
+ * the key and partial results are hash-partitioned to temp files, and the map is cleared.
+ * When consuming the Sequence, the partitions are read back one by one, and partial results are combined;
+ * if a partition is still too large, it is partitioned again with a different hash.
+ * If all keys can fit in memory, no temp file is used.
+ * The temp files are deleted when read back, when the Sequence is closed, or when an exception is thrown.
+ *
+ * @param <T> the element type
+ * @param <K> the key type
+ * @param <R> the reduce result type
+ */
+class SpilledGroupSequence<T, K, R> implements CloseableSequence<Map.Entry<K, R>> {
+    private static final int PARTITIONS = 16;
+    // partition levels, after that partitions are combined in memory regardless of the budget
+    private static final int MAX_LEVEL = 8;
+
+    private Sequence<T> original;
+    private final Function<? super T, ? extends K> keyMapper;
+    private final Supplier<R> initial;
+    private final BiFunction<? super R, ? super T, ? extends R> reducer;
+    private final BinaryOperator<R> combiner;
+    private final SpillCodec<Map.Entry<K, R>> codec;
+    private final SpillOptions options;
+
+    private final ArrayDeque<Partition<K, R>> partitions = new ArrayDeque<>();
+    private Iterator<Map.Entry<K, R>> current = null;
+
+    SpilledGroupSequence(Sequence<T> original, Function<? super T, ? extends K> keyMapper, Supplier<R> initial,
+                         BiFunction<? super R, ? super T, ? extends R> reducer, BinaryOperator<R> combiner,
+                         SpillCodec<K> keyCodec, SpillCodec<R> valueCodec, SpillOptions options) {
+        this.original = original;
+        this.keyMapper = keyMapper;
+        this.initial = initial;
+        this.reducer = reducer;
+        this.combiner = combiner;
+        this.codec = new EntryCodec<>(keyCodec, valueCodec);
+        this.options = options;
+    }
+
+    /**
+     * A partition spilled to temp file
+     */
+    private static class Partition<K, R> {
+        private final SpillFile<Map.Entry<K, R>> file;
+        private final int level;
+
+        private Partition(SpillFile<Map.Entry<K, R>> file, int level) {
+            this.file = file;
+            this.level = level;
+        }
+    }
+
+    /**
+     * The partition files of one level, created when first written.
+     */
+    private class Partitions {
+        @SuppressWarnings("unchecked")
+        private final SpillFile<Map.Entry<K, R>>[] files = (SpillFile<Map.Entry<K, R>>[]) new SpillFile<?>[PARTITIONS];
+        private final int level;
+
+        private Partitions(int level) {
+            this.level = level;
+        }
+
+        private void spill(Map<K, R> map) {
+            for (var entry : map.entrySet()) {
+                int index = index(entry.getKey(), level);
+                if (files[index] == null) {
+                    files[index] = new SpillFile<>(options, codec);
+                }
+                files[index].write(entry);
+            }
+            map.clear();
+        }
+
+        /**
+         * Finish writing, and add the partitions to the head of pending partitions, keep the partitions order
+         */
+        private void pushAll() {
+            for (var file : files) {
+                if (file != null) {
+                    file.finish();
+                }
+            }
+            for (int i = PARTITIONS - 1; i >= 0; i--) {
+                if (files[i] != null) {
+                    partitions.addFirst(new Partition<>(files[i], level));
+                }
+            }
+        }
+
+        private void delete() {
+            for (var file : files) {
+                if (file != null) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private static int index(Object key, int level) {
+        long hash = Utils.mix64(Utils.hashCode(key) + level * 0x9E3779B97F4A7C15L);
+        return (int) (hash >>> 60);
+    }
+
+    private Iterator<Map.Entry<K, R>> reduce() {
+        int maxInMemory = options.maxInMemory();
+        var map = new HashMap<K, R>();
+        Partitions spilled = null;
+        try {
+            while (original.hasNext()) {
+                T value = original.next();
+                K key = keyMapper.apply(value);
+                if (!map.containsKey(key)) {
+                    if (map.size() >= maxInMemory) {
+                        if (spilled == null) {
+                            spilled = new Partitions(0);
+                        }
+                        spilled.spill(map);
+                    }
+                    map.put(key, reducer.apply(initial.get(), value));
+                } else {
+                    map.put(key, reducer.apply(map.get(key), value));
+                }
+            }
+            if (spilled == null) {
+                return map.entrySet().iterator();
+            }
+            spilled.spill(map);
+            spilled.pushAll();
+        } catch (RuntimeException | Error e) {
+            if (spilled != null) {
+                spilled.delete();
+            }
+            throw e;
+        }
+        return null;
+    }
+
+    private Iterator<Map.Entry<K, R>> combine(Partition<K, R> partition) {
+        int maxInMemory = options.maxInMemory();
+        var map = new HashMap<K, R>();
+        var sequence = partition.file.read();
+        Partitions spilled = null;
+        try {
+            while (sequence.hasNext()) {
+                var entry = sequence.next();
+                K key = entry.getKey();
+                if (!map.containsKey(key)) {
+                    if (map.size() >= maxInMemory && partition.level < MAX_LEVEL) {
+                        if (spilled == null) {
+                            spilled = new Partitions(partition.level + 1);
+                        }
+                        spilled.spill(map);
+                    }
+                    map.put(key, entry.getValue());
+                } else {
+                    map.put(key, combiner.apply(map.get(key), entry.getValue()));
+                }
+            }
+            if (spilled == null) {
+                return map.entrySet().iterator();
+            }
+            spilled.spill(map);
+            spilled.pushAll();
+        } catch (RuntimeException | Error e) {
+            partition.file.delete();
+            if (spilled != null) {
+                spilled.delete();
+            }
+            throw e;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            if (original != null) {
+                current = reduce();
+                original = null;
+            }
+            while (current == null || !current.hasNext()) {
+                var partition = partitions.pollFirst();
+                if (partition == null) {
+                    return false;
+                }
+                current = combine(partition);
+            }
+        } catch (RuntimeException | Error e) {
+            close();
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Delete the pending partition files, and discard the entries not consumed.
+     */
+    @Override
+    public void close() {
+        original = null;
+        current = null;
+        Partition<K, R> partition;
+        while ((partition = partitions.pollFirst()) != null) {
+            partition.file.delete();
+        }
+    }
+
+    @Override
+    public Map.Entry<K, R> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        var entry = current.next();
+        return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+    }
+
+    private static class EntryCodec<K, R> implements SpillCodec<Map.Entry<K, R>> {
+        private final SpillCodec<K> keyCodec;
+        private final SpillCodec<R> valueCodec;
+
+        private EntryCodec(SpillCodec<K> keyCodec, SpillCodec<R> valueCodec) {
+            this.keyCodec = keyCodec;
+            this.valueCodec = valueCodec;
+        }
+
+        @Override
+        public void write(DataOutput out, Map.Entry<K, R> entry) throws IOException {
+            keyCodec.write(out, entry.getKey());
+            valueCodec.write(out, entry.getValue());
+        }
+
+        @Override
+        public Map.Entry<K, R> read(DataInput in) throws IOException {
+            K key = keyCodec.read(in);
+            R value = valueCodec.read(in);
+            return new AbstractMap.SimpleImmutableEntry<>(key, value);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package net.dongliu.commons.sequence;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spliterator apply a size preserving stage to the elements of source Spliterator.
+ */
+class StageSpliterator<S, T> implements Spliterator<T> {
+    private final Spliterator<S> source;
+    private final FusedSequence.Stage<S, T> stage;
+
+    StageSpliterator(Spliterator<S> source, FusedSequence.Stage<S, T> stage) {
+        this.source = source;
+        this.stage = stage;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        requireNonNull(action);
+        return source.tryAdvance(stage.wrap(action));
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        source.forEachRemaining(stage.wrap(action));
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        var prefix = source.trySplit();
+        return prefix == null ? null : new StageSpliterator<>(prefix, stage);
+    }
+
+    @Override
+    public long estimateSize() {
+        return source.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return source.characteristics() & (ORDERED | SIZED | SUBSIZED);
+    }
+}
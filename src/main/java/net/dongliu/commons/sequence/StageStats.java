@@ -0,0 +1,76 @@
+package net.dongliu.commons.sequence;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The statistics of one stage in a instrumented Sequence pipeline. This class is immutable.
+ */
+public class StageStats {
+    private final int index;
+    private final String operator;
+    private final long in;
+    private final long out;
+    private final long nanos;
+
+    StageStats(int index, String operator, long in, long out, long nanos) {
+        this.index = index;
+        this.operator = requireNonNull(operator);
+        this.in = in;
+        this.out = out;
+        this.nanos = nanos;
+    }
+
+    /**
+     * The index of this stage in pipeline, start from 0
+     */
+    public int index() {
+        return index;
+    }
+
+    /**
+     * The operator name, map, filter, flatMap or peek
+     */
+    public String operator() {
+        return operator;
+    }
+
+    /**
+     * The count of elements flow into this stage
+     */
+    public long in() {
+        return in;
+    }
+
+    /**
+     * The count of elements flow out of this stage
+     */
+    public long out() {
+        return out;
+    }
+
+    /**
+     * The time spent in the function of this stage, in nanoseconds
+     */
+    public long nanos() {
+        return nanos;
+    }
+
+    /**
+     * The ratio of out count to in count. If no elements flow in, return 1.
+     */
+    public double selectivity() {
+        return in == 0 ? 1 : (double) out / in;
+    }
+
+    @Override
+    public String toString() {
+        return "StageStats{" +
+                "index=" + index +
+                ", operator=" + operator +
+                ", in=" + in +
+                ", out=" + out +
+                ", nanos=" + nanos +
+                ", selectivity=" + selectivity() +
+                '}';
+    }
+}
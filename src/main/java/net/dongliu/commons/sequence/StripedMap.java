@@ -0,0 +1,85 @@
+package net.dongliu.commons.sequence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+
+/**
+ * A map split to stripes by key hash, every stripe is a HashMap guarded by its own lock.
+ * Partial maps can be merged into it from multi threads concurrently; a thread only lock one stripe at a time.
+ * Null keys and values are permitted.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+class StripedMap<K, V> {
+    private final HashMap<K, V>[] stripes;
+
+    StripedMap(int concurrency) {
+        // power of 2, so index can be calculated by mask
+        int size = Integer.highestOneBit(Math.max(concurrency, 1) * 2 - 1);
+        @SuppressWarnings("unchecked")
+        var stripes = (HashMap<K, V>[]) new HashMap<?, ?>[size];
+        this.stripes = stripes;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new HashMap<>();
+        }
+    }
+
+    private int index(Object key) {
+        return (int) Utils.mix64(Utils.hashCode(key)) & (stripes.length - 1);
+    }
+
+    /**
+     * Merge all entries of the partial map. Values with the same key are combined by the combiner.
+     */
+    void merge(Map<K, V> partial, BinaryOperator<V> combiner) {
+        @SuppressWarnings("unchecked")
+        var buckets = (List<Map.Entry<K, V>>[]) new List<?>[stripes.length];
+        for (var entry : partial.entrySet()) {
+            int index = index(entry.getKey());
+            if (buckets[index] == null) {
+                buckets[index] = new ArrayList<>();
+            }
+            buckets[index].add(entry);
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            if (buckets[i] == null) {
+                continue;
+            }
+            var stripe = stripes[i];
+            synchronized (stripe) {
+                for (var entry : buckets[i]) {
+                    mergeEntry(stripe, entry.getKey(), entry.getValue(), combiner);
+                }
+            }
+        }
+    }
+
+    static <K, V> void mergeEntry(Map<K, V> map, K key, V value, BinaryOperator<V> combiner) {
+        if (!map.containsKey(key)) {
+            map.put(key, value);
+        } else {
+            map.put(key, combiner.apply(map.get(key), value));
+        }
+    }
+
+    /**
+     * Return a HashMap contains all entries. Should be called after all merges finished.
+     */
+    Map<K, V> toMap() {
+        int size = 0;
+        for (var stripe : stripes) {
+            size += stripe.size();
+        }
+        var map = new HashMap<K, V>(Math.max((int) (size / 0.75f) + 1, 16));
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                map.putAll(stripe);
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,140 @@
+package net.dongliu.commons.sequence;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A lazy Sequence contains the first k elements of the sorted original Sequence, in ascending order.
+ * This is the same as sorting the original Sequence and then taking k elements, but only a bounded heap of k elements
+ * is kept in memory, so it runs in O(n log k) time and O(k) space.
+ * As the sort is stable, for equal elements the ones come first in the original Sequence are preferred.
+ */
+class TopKSequence<T> implements Sequence<T> {
+    private Sequence<T> original;
+    private final Comparator<? super T> comparator;
+    private final int k;
+
+    // a max heap, ordered by element and then the element index in original sequence
+    private Object[] values;
+    private long[] indexes;
+    private int size;
+
+    private int cursor = -1;
+
+    TopKSequence(Sequence<T> original, Comparator<? super T> comparator, int k) {
+        this.original = original;
+        this.comparator = comparator;
+        this.k = k;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(int i, int j) {
+        int c = comparator.compare((T) values[i], (T) values[j]);
+        return c != 0 ? c : Long.compare(indexes[i], indexes[j]);
+    }
+
+    private void swap(int i, int j) {
+        Object value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+        long index = indexes[i];
+        indexes[i] = indexes[j];
+        indexes[j] = index;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (compare(i, parent) <= 0) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int size) {
+        while (true) {
+            int child = (i << 1) + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && compare(child + 1, child) > 0) {
+                child++;
+            }
+            if (compare(child, i) <= 0) {
+                break;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void select() {
+        int capacity = Math.min(k, 16);
+        values = new Object[capacity];
+        indexes = new long[capacity];
+        long index = 0;
+        while (original.hasNext()) {
+            T value = original.next();
+            if (size < k) {
+                if (size == values.length) {
+                    capacity = (int) Math.min(k, (long) capacity << 1);
+                    values = Arrays.copyOf(values, capacity);
+                    indexes = Arrays.copyOf(indexes, capacity);
+                }
+                values[size] = value;
+                indexes[size] = index;
+                siftUp(size++);
+            } else if (comparator.compare(value, (T) values[0]) < 0) {
+                values[0] = value;
+                indexes[0] = index;
+                siftDown(0, size);
+            }
+            index++;
+        }
+        // heap sort, to ascending order
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        indexes = null;
+        original = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (cursor < 0) {
+            select();
+            cursor = 0;
+        }
+        return cursor < size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T value = (T) values[cursor];
+        values[cursor++] = null;
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachRemaining(Consumer<? super T> action) {
+        requireNonNull(action);
+        while (hasNext()) {
+            T value = (T) values[cursor];
+            values[cursor++] = null;
+            action.accept(value);
+        }
+    }
+}
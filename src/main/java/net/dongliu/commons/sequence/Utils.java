@@ -1,7 +1,12 @@
 package net.dongliu.commons.sequence;
 
+import java.util.Spliterator;
+
 class Utils {
-    static void checkSize(int size) {
+    // some VMs reserve some header words in an array
+    static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    static void checkSize(long size) {
         if (size <= 0) {
             throw new IllegalArgumentException("size " + size + " should larger than zero");
         }
@@ -12,4 +17,56 @@ class Utils {
             throw new IllegalArgumentException("count " + count + " should larger than or equal with zero");
         }
     }
+
+    static int hashCode(Object value) {
+        return value == null ? 0 : value.hashCode();
+    }
+
+    /**
+     * Spread 32 bits hash code to 64 bits, using the finalizer of MurmurHash3.
+     */
+    static long mix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * The count of remaining elements of the sequence, or -1 if unknown.
+     */
+    static long remaining(Sequence<?> sequence) {
+        if (sequence instanceof SizedSequence) {
+            return ((SizedSequence<?>) sequence).remaining();
+        }
+        return -1;
+    }
+
+    /**
+     * Skip at most n elements of sequence, return the count of elements skipped.
+     * If the size of sequence is known, elements are skipped without producing them.
+     */
+    static long skip(Sequence<?> sequence, long n) {
+        if (remaining(sequence) >= 0) {
+            return ((SizedSequence<?>) sequence).skip(n);
+        }
+        long skipped = 0;
+        while (skipped < n && sequence.hasNext()) {
+            sequence.next();
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Return a Spliterator over the remaining elements of sequence. If the size is known, the Spliterator is SIZED.
+     */
+    static <T> Spliterator<T> spliterator(Sequence<T> sequence) {
+        if (remaining(sequence) >= 0) {
+            return ((SizedSequence<T>) sequence).spliterator(Long.MAX_VALUE);
+        }
+        return new SequenceSpliterator<>(sequence);
+    }
 }
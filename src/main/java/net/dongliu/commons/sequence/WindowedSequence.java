@@ -0,0 +1,91 @@
+package net.dongliu.commons.sequence;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A Sequence of sliding windows, backed by a ring buffer.
+ * The returned window is a read-only view of the ring buffer, only valid until the next window is taken.
+ * Only full windows are returned.
+ */
+class WindowedSequence<T> implements Sequence<List<T>> {
+    private final Sequence<T> sequence;
+    private final int size;
+    private final int step;
+
+    private final Object[] ring;
+    private int start;
+    private int count;
+    // if current window is full and not taken
+    private boolean ready;
+    // if any window has been taken
+    private boolean started;
+    private final List<T> view = new Window();
+
+    WindowedSequence(Sequence<T> sequence, int size, int step) {
+        this.sequence = sequence;
+        this.size = size;
+        this.step = step;
+        this.ring = new Object[size];
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (ready) {
+            return true;
+        }
+        if (started) {
+            slide();
+        }
+        while (count < size && sequence.hasNext()) {
+            ring[(start + count++) % size] = sequence.next();
+        }
+        ready = count == size;
+        return ready;
+    }
+
+    private void slide() {
+        if (step < size) {
+            for (int i = 0; i < step; i++) {
+                ring[(start + i) % size] = null;
+            }
+            start = (start + step) % size;
+            count -= step;
+            return;
+        }
+        Arrays.fill(ring, null);
+        start = 0;
+        count = 0;
+        for (int i = size; i < step && sequence.hasNext(); i++) {
+            sequence.next();
+        }
+    }
+
+    @Override
+    public List<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ready = false;
+        started = true;
+        return view;
+    }
+
+    private class Window extends AbstractList<T> implements RandomAccess {
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Objects.checkIndex(index, count);
+            return (T) ring[(start + index) % size];
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package net.dongliu.commons.sequence;
 
-import net.dongliu.commons.collection.Pair;
+import java.util.function.BiFunction;
 
-class ZippedSequence<S, T> implements Sequence<Pair<S, T>> {
+class ZippedSequence<S, T, R> implements Sequence<R> {
     private final Sequence<S> s1;
     private final Sequence<T> s2;
+    private final BiFunction<? super S, ? super T, ? extends R> zipper;
 
-    public ZippedSequence(Sequence<S> s1, Sequence<T> s2) {
+    public ZippedSequence(Sequence<S> s1, Sequence<T> s2, BiFunction<? super S, ? super T, ? extends R> zipper) {
         this.s1 = s1;
         this.s2 = s2;
+        this.zipper = zipper;
     }
 
     @Override
@@ -17,7 +19,7 @@ class ZippedSequence<S, T> implements Sequence<Pair<S, T>> {
     }
 
     @Override
-    public Pair<S, T> next() {
-        return Pair.of(s1.next(), s2.next());
+    public R next() {
+        return zipper.apply(s1.next(), s2.next());
     }
 }
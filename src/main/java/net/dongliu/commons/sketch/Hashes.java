@@ -0,0 +1,28 @@
+package net.dongliu.commons.sketch;
+
+/**
+ * Hash utils for sketches
+ */
+class Hashes {
+    private Hashes() {
+    }
+
+    /**
+     * Return a 64 bits hash for the value, by spreading the hash code. Null value is permitted.
+     */
+    static long hash(Object value) {
+        return mix64(value == null ? 0 : value.hashCode());
+    }
+
+    /**
+     * Spread bits of hash, using the finalizer of MurmurHash3.
+     */
+    static long mix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,335 @@
+package net.dongliu.commons.sketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Space-saving sketch to find the most frequent items, using a fixed count of counters.
+ * When a new item comes and all counters are used, the counter with the min count is taken over by the new item,
+ * and the min count is recorded as the error of the new item.
+ * Counters are kept in buckets of the same count(stream-summary), so adding one item costs O(1).
+ * <p>
+ * For every monitored item, its real count is in [count - error, count]. The error of any item is at most
+ * {@link #maxError()}, which is not larger than total / capacity; so any item occurring more than total / capacity times
+ * is guaranteed to be monitored.
+ * <p>
+ * Sketches with the same capacity can be merged. This class is not thread-safe.
+ *
+ * @param <T> the item type
+ */
+public class HeavyHitters<T> {
+    private final int capacity;
+    private final HashMap<T, Counter<T>> counters;
+    // the bucket with the min count
+    private Bucket<T> minBucket;
+    private long total;
+
+    private HeavyHitters(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(Math.max(16, (int) (capacity / 0.75f) + 1));
+    }
+
+    /**
+     * Create a new empty sketch.
+     *
+     * @param capacity the count of counters. To get top N items with good accuracy, this should be several times of N.
+     */
+    public static <T> HeavyHitters<T> of(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity should larger than zero, but got " + capacity);
+        }
+        return new HeavyHitters<>(capacity);
+    }
+
+    private static class Counter<T> {
+        private T item;
+        private long error;
+        private Bucket<T> bucket;
+        private Counter<T> prev;
+        private Counter<T> next;
+    }
+
+    /**
+     * Counters with the same count, buckets are linked in ascending count order.
+     */
+    private static class Bucket<T> {
+        private final long count;
+        private Counter<T> head;
+        private Bucket<T> prev;
+        private Bucket<T> next;
+
+        private Bucket(long count) {
+            this.count = count;
+        }
+
+        private void add(Counter<T> counter) {
+            counter.bucket = this;
+            counter.prev = null;
+            counter.next = head;
+            if (head != null) {
+                head.prev = counter;
+            }
+            head = counter;
+        }
+
+        private void remove(Counter<T> counter) {
+            if (counter.prev != null) {
+                counter.prev.next = counter.next;
+            } else {
+                head = counter.next;
+            }
+            if (counter.next != null) {
+                counter.next.prev = counter.prev;
+            }
+            counter.prev = null;
+            counter.next = null;
+        }
+    }
+
+    /**
+     * The count of counters
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * The count of items added
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Add one item. Null is not permitted.
+     */
+    public void add(T item) {
+        requireNonNull(item);
+        total++;
+        var counter = counters.get(item);
+        if (counter != null) {
+            increment(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter<>();
+            counter.item = item;
+            if (minBucket == null || minBucket.count != 1) {
+                var bucket = new Bucket<T>(1);
+                bucket.next = minBucket;
+                if (minBucket != null) {
+                    minBucket.prev = bucket;
+                }
+                minBucket = bucket;
+            }
+            minBucket.add(counter);
+            counters.put(item, counter);
+            return;
+        }
+        // take over the counter with min count
+        counter = minBucket.head;
+        counters.remove(counter.item);
+        counter.item = item;
+        counter.error = minBucket.count;
+        counters.put(item, counter);
+        increment(counter);
+    }
+
+    private void increment(Counter<T> counter) {
+        var bucket = counter.bucket;
+        long count = bucket.count + 1;
+        var target = bucket.next;
+        if (target == null || target.count != count) {
+            target = new Bucket<>(count);
+            target.prev = bucket;
+            target.next = bucket.next;
+            if (bucket.next != null) {
+                bucket.next.prev = target;
+            }
+            bucket.next = target;
+        }
+        bucket.remove(counter);
+        target.add(counter);
+        if (bucket.head == null) {
+            unlink(bucket);
+        }
+    }
+
+    private void unlink(Bucket<T> bucket) {
+        if (bucket.prev != null) {
+            bucket.prev.next = bucket.next;
+        } else {
+            minBucket = bucket.next;
+        }
+        if (bucket.next != null) {
+            bucket.next.prev = bucket.prev;
+        }
+    }
+
+    /**
+     * The max error of counts. If the counters are not all used, all counts are exact, and this return 0.
+     */
+    public long maxError() {
+        if (counters.size() < capacity || minBucket == null) {
+            return 0;
+        }
+        return minBucket.count;
+    }
+
+    /**
+     * Merge other sketch into this sketch. For items only monitored in one sketch,
+     * the max error of the other sketch is added to its count and error.
+     * Then the items with largest counts are kept.
+     *
+     * @throws IllegalArgumentException if the capacities of sketches are not the same
+     */
+    public void merge(HeavyHitters<T> other) {
+        requireNonNull(other);
+        if (other.capacity != capacity) {
+            // the merged counters may be not full, then maxError() can not bound the errors of merged items
+            throw new IllegalArgumentException("capacity not match: " + capacity + ", " + other.capacity);
+        }
+        long maxError = maxError();
+        long otherMaxError = other.maxError();
+        var merged = new HashMap<T, Item<T>>();
+        for (var item : items()) {
+            var otherCounter = other.counters.get(item.item);
+            if (otherCounter == null) {
+                merged.put(item.item, new Item<>(item.item, item.count + otherMaxError, item.error + otherMaxError));
+            } else {
+                merged.put(item.item, new Item<>(item.item, item.count + otherCounter.bucket.count,
+                        item.error + otherCounter.error));
+            }
+        }
+        for (var item : other.items()) {
+            if (!merged.containsKey(item.item)) {
+                merged.put(item.item, new Item<>(item.item, item.count + maxError, item.error + maxError));
+            }
+        }
+        var list = new ArrayList<>(merged.values());
+        list.sort(Comparator.comparingLong(Item<T>::count).reversed());
+        long total = this.total + other.total;
+        rebuild(list.subList(0, Math.min(capacity, list.size())));
+        this.total = total;
+    }
+
+    /**
+     * Rebuild counters from items sorted by count in descending order
+     */
+    private void rebuild(List<Item<T>> items) {
+        counters.clear();
+        minBucket = null;
+        Bucket<T> bucket = null;
+        for (var item : items) {
+            if (bucket == null || bucket.count != item.count) {
+                var newBucket = new Bucket<T>(item.count);
+                newBucket.next = bucket;
+                if (bucket != null) {
+                    bucket.prev = newBucket;
+                }
+                bucket = newBucket;
+            }
+            var counter = new Counter<T>();
+            counter.item = item.item;
+            counter.error = item.error;
+            bucket.add(counter);
+            counters.put(item.item, counter);
+        }
+        minBucket = bucket;
+    }
+
+    /**
+     * Return all monitored items, in descending order of count.
+     */
+    public List<Item<T>> items() {
+        return top(capacity);
+    }
+
+    /**
+     * Return at most n monitored items with the largest counts, in descending order of count.
+     */
+    public List<Item<T>> top(int n) {
+        var list = new ArrayList<Item<T>>(Math.min(n, counters.size()));
+        if (minBucket == null) {
+            return list;
+        }
+        var bucket = minBucket;
+        while (bucket.next != null) {
+            bucket = bucket.next;
+        }
+        for (; bucket != null && list.size() < n; bucket = bucket.prev) {
+            for (var counter = bucket.head; counter != null && list.size() < n; counter = counter.next) {
+                list.add(new Item<>(counter.item, bucket.count, counter.error));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * A monitored item, with its estimated count and error. This class is immutable.
+     *
+     * @param <T> the item type
+     */
+    public static class Item<T> {
+        private final T item;
+        private final long count;
+        private final long error;
+
+        private Item(T item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        /**
+         * The item
+         */
+        public T item() {
+            return item;
+        }
+
+        /**
+         * The estimated count, which is the upper bound of the real count
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * The max over-estimation of count
+         */
+        public long error() {
+            return error;
+        }
+
+        /**
+         * The lower bound of the real count
+         */
+        public long guaranteedCount() {
+            return count - error;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Item<?> that = (Item<?>) o;
+            return count == that.count && error == that.error && item.equals(that.item);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(item, count, error);
+        }
+
+        @Override
+        public String toString() {
+            return "Item{item=" + item + ", count=" + count + ", error=" + error + '}';
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package net.dongliu.commons.sketch;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * HyperLogLog sketch, to estimate the count of distinct values, using 2^precision registers.
+ * The relative standard error is about {@code 1.04 / sqrt(2^precision)}, for example 0.81% for precision 14.
+ * Values are hashed to 64 bits; {@link #add(Object)} use the hashCode of value, spread to 64 bits,
+ * so estimation is accurate only if there are much less than 2^32 distinct hash codes.
+ * Call {@link #addHash(long)} with a real 64 bits hash for larger cardinality.
+ * <p>
+ * Sketches with the same precision can be merged. This class is not thread-safe.
+ */
+public class HyperLogLog {
+    /**
+     * The min precision
+     */
+    public static final int MIN_PRECISION = 4;
+    /**
+     * The max precision
+     */
+    public static final int MAX_PRECISION = 18;
+    private static final int BITS_PER_REGISTER = 6;
+
+    private final int precision;
+    private final byte[] registers;
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    /**
+     * Create a new empty sketch.
+     *
+     * @param precision the precision, from {@link #MIN_PRECISION} to {@link #MAX_PRECISION}
+     */
+    public static HyperLogLog of(int precision) {
+        checkPrecision(precision);
+        return new HyperLogLog(precision, new byte[1 << precision]);
+    }
+
+    private static void checkPrecision(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision should be in [" + MIN_PRECISION + ", " + MAX_PRECISION
+                    + "], but got " + precision);
+        }
+    }
+
+    /**
+     * The precision of this sketch
+     */
+    public int precision() {
+        return precision;
+    }
+
+    /**
+     * Add a value, using the spread hashCode of value. Null value is permitted.
+     */
+    public void add(Object value) {
+        addHash(Hashes.hash(value));
+    }
+
+    /**
+     * Add a value by its 64 bits hash. The hash should be well distributed.
+     */
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // set a sentinel bit, so the rank is at most 64 - precision + 1
+        long w = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(w) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Merge other sketch into this sketch. After merge, this sketch is the same as added all values of the two sketch.
+     *
+     * @throws IllegalArgumentException if the precisions of sketches are not the same
+     */
+    public void merge(HyperLogLog other) {
+        requireNonNull(other);
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("precision not match: " + precision + ", " + other.precision);
+        }
+        byte[] registers = this.registers;
+        byte[] otherRegisters = other.registers;
+        for (int i = 0; i < registers.length; i++) {
+            if (otherRegisters[i] > registers[i]) {
+                registers[i] = otherRegisters[i];
+            }
+        }
+    }
+
+    /**
+     * Return the estimated count of distinct values.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // small range correction, using linear counting
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * The relative standard error of estimation
+     */
+    public double relativeError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    /**
+     * Serialize this sketch to bytes. Registers are packed in 6 bits each.
+     */
+    public byte[] toBytes() {
+        byte[] data = new byte[1 + (registers.length * BITS_PER_REGISTER + 7) / 8];
+        data[0] = (byte) precision;
+        int bit = 0;
+        for (byte register : registers) {
+            for (int i = BITS_PER_REGISTER - 1; i >= 0; i--, bit++) {
+                if ((register >>> i & 1) != 0) {
+                    data[1 + (bit >>> 3)] |= (byte) (0x80 >>> (bit & 7));
+                }
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Deserialize a sketch from bytes, which is serialized by {@link #toBytes()}.
+     *
+     * @throws IllegalArgumentException if data is not valid
+     */
+    public static HyperLogLog fromBytes(byte[] data) {
+        requireNonNull(data);
+        if (data.length == 0) {
+            throw new IllegalArgumentException("empty data");
+        }
+        int precision = data[0];
+        checkPrecision(precision);
+        byte[] registers = new byte[1 << precision];
+        if (data.length != 1 + (registers.length * BITS_PER_REGISTER + 7) / 8) {
+            throw new IllegalArgumentException("data length not match precision: " + data.length);
+        }
+        int bit = 0;
+        for (int r = 0; r < registers.length; r++) {
+            int register = 0;
+            for (int i = 0; i < BITS_PER_REGISTER; i++, bit++) {
+                register = register << 1 | (data[1 + (bit >>> 3)] >>> (7 - (bit & 7)) & 1);
+            }
+            registers[r] = (byte) register;
+        }
+        return new HyperLogLog(precision, registers);
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog{precision=" + precision + ", estimate=" + estimate() + '}';
+    }
+}
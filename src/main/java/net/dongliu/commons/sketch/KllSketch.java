@@ -0,0 +1,324 @@
+package net.dongliu.commons.sketch;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * KLL quantile sketch for double values, to estimate quantiles and ranks in bounded memory.
+ * Values are kept in levels of compactors; a value in level h stands for 2^h original values. When the sketch is full,
+ * the lowest full level is sorted, and every other value(starting from a random offset) is promoted to the next level.
+ * The sketch retains O(k log(n/k)) values for n values added.
+ * <p>
+ * The normalized rank error is about {@code 2.3 / k^0.97} with high probability, that is about 1.3% for k = 200:
+ * for a estimated quantile value, its real rank differs from the requested rank by at most this fraction of n.
+ * Min and max values are exact.
+ * <p>
+ * Sketches with the same k can be merged. This class is not thread-safe.
+ */
+public class KllSketch {
+    /**
+     * The default k, with rank error about 1.3%
+     */
+    public static final int DEFAULT_K = 200;
+    private static final int MIN_K = 8;
+    // the min capacity of one level
+    private static final int MIN_LEVEL_CAPACITY = 8;
+
+    private final int k;
+    private final SplittableRandom random = new SplittableRandom();
+    private double[][] levels = new double[1][];
+    private int[] sizes = new int[1];
+    private long count;
+    private int retained;
+    // capacities of levels and the total capacity, only change when a level is added
+    private int[] capacities;
+    private int capacity;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    // sorted view for queries, reset when the sketch changes
+    private double[] sortedValues;
+    private long[] cumulativeWeights;
+
+    private KllSketch(int k) {
+        this.k = k;
+        levels[0] = new double[k];
+        updateCapacities();
+    }
+
+    /**
+     * Create a new empty sketch with default k.
+     */
+    public static KllSketch of() {
+        return of(DEFAULT_K);
+    }
+
+    /**
+     * Create a new empty sketch.
+     *
+     * @param k the accuracy parameter, larger k for smaller error and more memory. Should be at least 8.
+     */
+    public static KllSketch of(int k) {
+        if (k < MIN_K) {
+            throw new IllegalArgumentException("k should not be less than " + MIN_K + ", but got " + k);
+        }
+        return new KllSketch(k);
+    }
+
+    /**
+     * The accuracy parameter k
+     */
+    public int k() {
+        return k;
+    }
+
+    /**
+     * The count of values added
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * The approximate normalized rank error, with high probability.
+     */
+    public double normalizedRankError() {
+        return 2.296 / Math.pow(k, 0.9723);
+    }
+
+    /**
+     * Add a value. NaN is ignored.
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        count++;
+        append(0, value);
+        compress();
+        sortedValues = null;
+    }
+
+    /**
+     * Merge other sketch into this sketch.
+     *
+     * @throws IllegalArgumentException if the k of sketches are not the same
+     */
+    public void merge(KllSketch other) {
+        requireNonNull(other);
+        if (other.k != k) {
+            throw new IllegalArgumentException("k not match: " + k + ", " + other.k);
+        }
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            min = other.min;
+            max = other.max;
+        } else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        count += other.count;
+        // snapshot the levels, other may be this sketch, whose levels grow when appending
+        double[][] otherLevels = other.levels.clone();
+        int[] otherSizes = other.sizes.clone();
+        for (int h = 0; h < otherLevels.length; h++) {
+            while (levels.length <= h) {
+                addLevel();
+            }
+            for (int i = 0; i < otherSizes[h]; i++) {
+                append(h, otherLevels[h][i]);
+            }
+        }
+        compress();
+        sortedValues = null;
+    }
+
+    private void append(int level, double value) {
+        double[] buffer = levels[level];
+        if (sizes[level] == buffer.length) {
+            buffer = levels[level] = Arrays.copyOf(buffer, Math.max(MIN_LEVEL_CAPACITY, buffer.length * 2));
+        }
+        buffer[sizes[level]++] = value;
+        retained++;
+    }
+
+    private void addLevel() {
+        int height = levels.length;
+        levels = Arrays.copyOf(levels, height + 1);
+        sizes = Arrays.copyOf(sizes, height + 1);
+        levels[height] = new double[MIN_LEVEL_CAPACITY];
+        updateCapacities();
+    }
+
+    // capacity of levels, lower levels have smaller capacities
+    private void updateCapacities() {
+        int height = levels.length;
+        capacities = new int[height];
+        capacity = 0;
+        for (int h = 0; h < height; h++) {
+            int depth = height - 1 - h;
+            capacities[h] = Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(2.0 / 3, depth)));
+            capacity += capacities[h];
+        }
+    }
+
+    private void compress() {
+        while (retained > capacity) {
+            int level = 0;
+            while (sizes[level] < capacities[level]) {
+                level++;
+            }
+            compact(level);
+        }
+    }
+
+    /**
+     * Sort the level, promote every other value to the next level. If the size is odd, the smallest value is kept.
+     */
+    private void compact(int level) {
+        if (level == levels.length - 1) {
+            addLevel();
+        }
+        double[] buffer = levels[level];
+        int size = sizes[level];
+        Arrays.sort(buffer, 0, size);
+        int start = size % 2;
+        for (int i = start + random.nextInt(2); i < size; i += 2) {
+            append(level + 1, buffer[i]);
+        }
+        retained -= size - start;
+        sizes[level] = start;
+    }
+
+    private void sortView() {
+        if (sortedValues != null) {
+            return;
+        }
+        double[] values = new double[retained];
+        long[] weights = new long[retained];
+        int n = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[n] = levels[h][i];
+                weights[n] = 1L << h;
+                n++;
+            }
+        }
+        // sort values with weights, by sorting indexes
+        Integer[] indexes = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, (i1, i2) -> Double.compare(values[i1], values[i2]));
+        sortedValues = new double[n];
+        cumulativeWeights = new long[n];
+        long cumulative = 0;
+        for (int i = 0; i < n; i++) {
+            sortedValues[i] = values[indexes[i]];
+            cumulative += weights[indexes[i]];
+            cumulativeWeights[i] = cumulative;
+        }
+    }
+
+    /**
+     * Return the estimated value at the normalized rank. If no values added, return NaN.
+     *
+     * @param rank the normalized rank, from 0 to 1. 0 for the min value, 0.5 for median, and 1 for the max value.
+     */
+    public double quantile(double rank) {
+        if (!(rank >= 0 && rank <= 1)) {
+            throw new IllegalArgumentException("rank should be in [0, 1], but got " + rank);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (rank == 0) {
+            return min;
+        }
+        if (rank == 1) {
+            return max;
+        }
+        sortView();
+        long total = cumulativeWeights[cumulativeWeights.length - 1];
+        double target = rank * total;
+        // the first value with cumulative weight not less than target
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return sortedValues[low];
+    }
+
+    /**
+     * Return the estimated values at the normalized ranks.
+     *
+     * @see #quantile(double)
+     */
+    public double[] quantiles(double... ranks) {
+        double[] values = new double[ranks.length];
+        for (int i = 0; i < ranks.length; i++) {
+            values[i] = quantile(ranks[i]);
+        }
+        return values;
+    }
+
+    /**
+     * Return the estimated normalized rank of value: the fraction of values less than or equal to it.
+     * If no values added, return NaN.
+     */
+    public double rank(double value) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        sortView();
+        // the count of values less than or equal to value
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedValues[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        long weight = low == 0 ? 0 : cumulativeWeights[low - 1];
+        return (double) weight / cumulativeWeights[cumulativeWeights.length - 1];
+    }
+
+    /**
+     * The min value added, or NaN if no values added
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * The max value added, or NaN if no values added
+     */
+    public double max() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "KllSketch{k=" + k + ", count=" + count + ", retained=" + retained + '}';
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Streaming sketches, which summarize large data sets in bounded memory, with approximate results.
+ * Sketches of the same configuration can be merged, so data can be summarized by shards or threads, and combined.
+ * The sketches are not thread-safe.
+ */
+package net.dongliu.commons.sketch;
@@ -0,0 +1,37 @@
+package net.dongliu.commons.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PairColumnsTest {
+
+    @Test
+    public void add() {
+        var columns = new PairColumns<Integer, String>(0);
+        for (int i = 0; i < 100; i++) {
+            columns.add(i, String.valueOf(i));
+        }
+        columns.add(Pair.of(100, "100"));
+        assertEquals(101, columns.size());
+        assertEquals(Integer.valueOf(50), columns.first(50));
+        assertEquals("50", columns.second(50));
+        assertEquals(Pair.of(100, "100"), columns.get(100));
+        assertEquals(List.of(0, 1, 2), columns.firsts().subList(0, 3));
+        assertEquals(List.of("0", "1", "2"), columns.seconds().subList(0, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.first(101));
+        assertThrows(NullPointerException.class, () -> columns.add(null, "1"));
+        assertThrows(UnsupportedOperationException.class, () -> columns.firsts().add(1));
+    }
+
+    @Test
+    public void equals() {
+        var columns = new PairColumns<Integer, String>();
+        columns.add(1, "1");
+        columns.add(2, "2");
+        assertEquals(List.of(Pair.of(1, "1"), Pair.of(2, "2")), columns);
+    }
+}
@@ -0,0 +1,132 @@
+package net.dongliu.commons.sequence;
+
+import net.dongliu.commons.concurrent.Threads;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchingSinkTest {
+
+    @Test
+    void size() {
+        var batches = new ArrayList<List<Integer>>();
+        Sequence.of(1, 2, 3, 4, 5).drainTo(BatchingSink.<Integer>builder(batches::add).maxSize(2).build());
+        assertEquals(List.of(List.of(1, 2), List.of(3, 4), List.of(5)), batches);
+    }
+
+    @Test
+    void weight() {
+        var batches = new ArrayList<List<String>>();
+        Sequence.of("aaa", "bb", "c", "dddd", "e").drainTo(BatchingSink.<String>builder(batches::add)
+                .maxWeight(4, String::length).build());
+        assertEquals(List.of(List.of("aaa", "bb"), List.of("c", "dddd"), List.of("e")), batches);
+    }
+
+    @Test
+    void delay() throws InterruptedException {
+        var scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "test-timer"));
+        try {
+            var batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+            var threads = Collections.synchronizedList(new ArrayList<String>());
+            var flushed = new CountDownLatch(1);
+            var sink = BatchingSink.<Integer>builder(batch -> {
+                batches.add(batch);
+                threads.add(Thread.currentThread().getName());
+                flushed.countDown();
+            }).maxSize(100).maxDelay(Duration.ofMillis(20), scheduler).build();
+            sink.accept(1);
+            sink.accept(2);
+            // flushed by timer, without more elements
+            assertTrue(flushed.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(List.of(1, 2)), batches);
+            assertEquals(List.of("test-timer"), threads);
+            sink.accept(3);
+            sink.close();
+            assertEquals(List.of(List.of(1, 2), List.of(3)), batches);
+            assertThrows(IllegalStateException.class, () -> sink.accept(4));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void delayWithoutPermit() throws InterruptedException {
+        var scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setRemoveOnCancelPolicy(true);
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            var batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+            var release = new CountDownLatch(1);
+            var flushed = new CountDownLatch(2);
+            var sink = BatchingSink.<Integer>builder(batch -> {
+                batches.add(batch);
+                if (batches.size() == 1) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                flushed.countDown();
+            }).maxWeight(10, i -> i).maxDelay(Duration.ofMillis(10), scheduler).executor(executor).maxInFlight(1)
+                    .build();
+            // the first batch is full at once, and the flushing holds the only permit
+            sink.accept(10);
+            sink.accept(3);
+            // the timer expired while the first batch is flushing, it is not rescheduled
+            for (int i = 0; i < 500 && scheduler.getCompletedTaskCount() == 0; i++) {
+                Threads.sleepMills(10);
+            }
+            assertTrue(scheduler.getCompletedTaskCount() >= 1);
+            assertTrue(scheduler.getQueue().isEmpty());
+            // flushed once the first flushing finished
+            release.countDown();
+            assertTrue(flushed.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(List.of(10), List.of(3)), batches);
+            sink.close();
+        } finally {
+            scheduler.shutdown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void inFlight() {
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var inFlight = new AtomicInteger();
+            var maxInFlight = new AtomicInteger();
+            var total = new AtomicInteger();
+            Sequence.generate(i -> (int) i).take(1000).drainTo(BatchingSink.<Integer>builder(batch -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                Threads.sleepMills(1);
+                total.addAndGet(batch.size());
+                inFlight.decrementAndGet();
+            }).maxSize(10).executor(executor).maxInFlight(2).build());
+            assertEquals(1000, total.get());
+            assertTrue(maxInFlight.get() <= 2);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void failure() {
+        var sink = BatchingSink.<Integer>builder(batch -> {
+            throw new IllegalStateException();
+        }).maxSize(1).build();
+        var exception = assertThrows(CompletionException.class, () -> Sequence.of(1, 2).drainTo(sink));
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+    }
+}
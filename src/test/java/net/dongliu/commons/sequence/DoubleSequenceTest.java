@@ -0,0 +1,22 @@
+package net.dongliu.commons.sequence;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DoubleSequenceTest {
+
+    @Test
+    void mapAndFilter() {
+        assertArrayEquals(new double[]{1.0, 1.5}, DoubleSequence.of(1, 2, 3).map(v -> v / 2).filter(v -> v >= 1).toArray());
+    }
+
+    @Test
+    void reduce() {
+        assertEquals(6.0, DoubleSequence.of(1, 2, 3).sum());
+        assertEquals(2.0, DoubleSequence.of(1, 2, 3).average());
+        assertEquals(3.0, DoubleSequence.of(1, 3, 2).reduce(Double.NEGATIVE_INFINITY, Math::max));
+        assertEquals(-1.0, DoubleSequence.of(-2, -1, -3).reduce(Double.NEGATIVE_INFINITY, Math::max));
+    }
+}
@@ -0,0 +1,91 @@
+package net.dongliu.commons.sequence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstrumentedSequenceTest {
+
+    @Test
+    void report() {
+        var reports = new ArrayList<PipelineReport>();
+        var sequence = Sequence.of(1, 2, 3, 4, 5, 6).instrumented("test", reports::add)
+                .map(i -> i * 10)
+                .filter(i -> i % 20 == 0)
+                .flatMap(i -> Sequence.of(i, i + 1));
+        assertEquals(List.of(20, 21, 40, 41, 60, 61), sequence.toImmutableList());
+        assertEquals(1, reports.size());
+
+        var report = reports.get(0);
+        assertEquals("test", report.name());
+        assertEquals(3, report.stages().size());
+        var map = report.stages().get(0);
+        assertEquals("map", map.operator());
+        assertEquals(6, map.in());
+        assertEquals(6, map.out());
+        var filter = report.stages().get(1);
+        assertEquals("filter", filter.operator());
+        assertEquals(6, filter.in());
+        assertEquals(3, filter.out());
+        assertEquals(0.5, filter.selectivity());
+        var flatMap = report.stages().get(2);
+        assertEquals(3, flatMap.in());
+        assertEquals(6, flatMap.out());
+        assertTrue(report.totalNanos() >= 0);
+        assertEquals(3, sequence.report().stages().size());
+    }
+
+    @Test
+    void partialConsume() {
+        var reports = new ArrayList<PipelineReport>();
+        var sequence = Sequence.of(1, 2, 3).instrumented("partial", reports::add).peek(i -> {});
+        sequence.next();
+        assertEquals(1, sequence.report().stages().get(0).out());
+        assertTrue(reports.isEmpty());
+        assertTrue(sequence.hasNext());
+        sequence.next();
+        sequence.next();
+        assertFalse(sequence.hasNext());
+        assertEquals(1, reports.size());
+        assertEquals(3, reports.get(0).stages().get(0).in());
+    }
+
+    @Test
+    void shortCircuit() {
+        var reports = new ArrayList<PipelineReport>();
+        assertEquals(List.of(2, 4), Sequence.of(1, 2, 3, 4, 5).instrumented("take", reports::add)
+                .map(i -> i * 2).take(2).toImmutableList());
+        assertEquals(1, reports.size());
+        assertEquals(2, reports.get(0).stages().get(0).out());
+
+        assertEquals(Optional.of(2), Sequence.of(1, 2, 3).instrumented("first", reports::add)
+                .map(i -> i * 2).first());
+        assertEquals(2, reports.size());
+        assertEquals(1, reports.get(1).stages().get(0).in());
+
+        try (var sequence = Sequence.of(1, 2, 3).instrumented("close", reports::add).filter(i -> i > 1)) {
+            assertTrue(sequence.anyMatch(i -> i == 2));
+        }
+        assertEquals(3, reports.size());
+        assertEquals(2, reports.get(2).stages().get(0).in());
+    }
+
+    @Test
+    void firstThenIterate() {
+        var reports = new ArrayList<PipelineReport>();
+        var sequence = Sequence.of(1, 2, 3).instrumented("first", reports::add).map(i -> i * 2);
+        assertEquals(Optional.of(2), sequence.first());
+        assertEquals(1, reports.size());
+        assertTrue(sequence.hasNext());
+        assertEquals(List.of(4, 6), sequence.toImmutableList());
+        assertEquals(3, sequence.report().stages().get(0).out());
+        // the report is sent only once
+        assertEquals(1, reports.size());
+    }
+}
@@ -0,0 +1,27 @@
+package net.dongliu.commons.sequence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IntSequenceTest {
+
+    @Test
+    void mapAndFilter() {
+        assertArrayEquals(new int[]{4, 8}, IntSequence.of(1, 2, 3, 4).filter(v -> v % 2 == 0).map(v -> v * 2).toArray());
+    }
+
+    @Test
+    void sum() {
+        assertEquals(2L * Integer.MAX_VALUE, IntSequence.of(Integer.MAX_VALUE, Integer.MAX_VALUE).sum());
+        assertEquals(Double.NaN, IntSequence.of().average());
+    }
+
+    @Test
+    void sorted() {
+        assertEquals(List.of(1, 2, 3), IntSequence.of(2, 3, 1).sorted().boxed().toImmutableList());
+    }
+}
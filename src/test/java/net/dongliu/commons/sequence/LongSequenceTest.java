@@ -0,0 +1,47 @@
+package net.dongliu.commons.sequence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongSequenceTest {
+
+    @Test
+    void map() {
+        assertArrayEquals(new long[]{2, 4, 6}, LongSequence.of(1, 2, 3).map(v -> v * 2).toArray());
+        assertArrayEquals(new long[]{}, LongSequence.of().map(v -> v * 2).toArray());
+    }
+
+    @Test
+    void filter() {
+        assertArrayEquals(new long[]{2}, LongSequence.of(1, 2, 3).filter(v -> v % 2 == 0).toArray());
+        assertFalse(LongSequence.of(1, 3).filter(v -> v % 2 == 0).hasNext());
+    }
+
+    @Test
+    void sorted() {
+        assertArrayEquals(new long[]{1, 2, 3}, LongSequence.of(3, 1, 2).sorted().toArray());
+    }
+
+    @Test
+    void reduce() {
+        assertEquals(6, LongSequence.of(1, 2, 3).reduce(0, Long::sum));
+        assertEquals(6, LongSequence.of(1, 2, 3).sum());
+        assertEquals(2.0, LongSequence.of(1, 2, 3).average());
+        assertEquals(3, LongSequence.of(1, 2, 3).count());
+    }
+
+    @Test
+    void toArray() {
+        var values = Sequence.generate(i -> i).take(100).mapToLong(Long::longValue).toArray();
+        assertEquals(100, values.length);
+        assertEquals(99, values[99]);
+    }
+
+    @Test
+    void boxed() {
+        assertEquals(List.of(1L, 2L), LongSequence.of(1, 2).boxed().toImmutableList());
+    }
+}
@@ -0,0 +1,89 @@
+package net.dongliu.commons.sequence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelSequenceTest {
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    @Test
+    void sequential() {
+        assertEquals(List.of(2, 4, 6, 8, 10), Sequence.of(1, 2, 3, 4, 5).parallel(pool, 2)
+                .map(i -> i * 2).sequential().toImmutableList());
+        assertEquals(List.of(), Sequence.<Integer>of().parallel(pool, 2).sequential().toImmutableList());
+
+        var list = Sequence.generate(i -> i).take(1000).parallel(pool, 7).unordered()
+                .filter(i -> i % 2 == 0).sequential().toArrayList();
+        Collections.sort(list);
+        assertEquals(Sequence.generate(i -> i * 2).take(500).toImmutableList(), list);
+    }
+
+    @Test
+    void flatMap() {
+        assertEquals(List.of(1, 1, 1, 2, 1, 3), Sequence.of(1, 2, 3).parallel(pool, 2)
+                .flatMap(i -> Sequence.of(1, i)).sequential().toImmutableList());
+    }
+
+    @Test
+    void reduce() {
+        assertEquals("12345", Sequence.of(1, 2, 3, 4, 5).parallel(pool, 2)
+                .reduce(() -> "", (s, i) -> s + i, String::concat));
+        assertEquals(Integer.valueOf(0), Sequence.<Integer>of().parallel(pool, 2)
+                .reduce(() -> 0, Integer::sum, Integer::sum));
+    }
+
+    @Test
+    void groupAndReduce() {
+        assertEquals(Map.of(0, 6, 1, 9), Sequence.of(1, 2, 3, 4, 5).parallel(pool, 2).unordered()
+                .groupAndReduce(i -> i % 2, () -> 0, Integer::sum, Integer::sum));
+    }
+
+    @Test
+    void groupConcurrently() {
+        var expected = Sequence.generate(i -> i).take(10000).groupAndReduce(i -> i % 7, () -> 0L, (s, i) -> s + i);
+        assertEquals(expected, Sequence.generate(i -> i).take(10000).parallel(pool, 100, 4).unordered()
+                .groupAndReduce(i -> i % 7, () -> 0L, (s, i) -> s + i, Long::sum));
+        assertEquals(expected, Sequence.generate(i -> i).take(10000).parallel(pool, 100, 4)
+                .groupAndReduce(i -> i % 7, () -> 0L, (s, i) -> s + i, Long::sum));
+
+        assertEquals(Map.of(0, Optional.of(4), 1, Optional.of(5)), Sequence.of(1, 2, 3, 4, 5).parallel(pool, 2, 2)
+                .unordered().groupAndCollect(i -> i % 2, SeqCollectors::<Integer>max,
+                        (o1, o2) -> o1.get() >= o2.get() ? o1 : o2));
+
+        assertEquals(Map.of(0, List.of(2, 4), 1, List.of(1, 3, 5)), Sequence.of(1, 2, 3, 4, 5).parallel(pool, 1, 3)
+                .groupToList(i -> i % 2));
+        var map = Sequence.generate(i -> i).take(1000).parallel(pool, 10, 8).unordered().groupToList(i -> i % 3);
+        assertEquals(3, map.size());
+        assertEquals(334, map.get(0L).size());
+        var sorted = new ArrayList<>(map.get(0L));
+        Collections.sort(sorted);
+        assertEquals(Sequence.generate(i -> i * 3).take(334).toImmutableList(), sorted);
+    }
+
+    @Test
+    void countAndSum() {
+        assertEquals(500, Sequence.generate(i -> i).take(1000).parallel(pool, 64)
+                .filter(i -> i % 2 == 0).count());
+        assertEquals(499500L, Sequence.generate(i -> i).take(1000).parallel(pool, 64)
+                .sumLong(Long::longValue));
+    }
+
+    @Test
+    void exception() {
+        var list = new ArrayList<Integer>();
+        assertThrows(CompletionException.class, () -> Sequence.of(1, 2, 0).parallel(pool, 1)
+                .map(i -> 1 / i).sequential().forEach(list::add));
+        // the failure is thrown as soon as possible, values of batches before it may not be consumed
+        assertEquals(List.of(1, 0).subList(0, list.size()), list);
+    }
+}
@@ -0,0 +1,128 @@
+package net.dongliu.commons.sequence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefetchSequenceTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void prefetch() {
+        var expected = Sequence.generate(i -> (int) i).take(1000).toImmutableList();
+        assertEquals(expected, Sequence.of(expected).prefetch(16, executor).toImmutableList());
+        assertEquals(Arrays.asList(1, null, 3), Sequence.of(1, null, 3).prefetch(1, executor).toArrayList());
+        assertFalse(Sequence.of().prefetch(1, executor).hasNext());
+    }
+
+    @Test
+    void exception() {
+        var sequence = Sequence.of(1, 2, 3).map(i -> {
+            if (i == 3) {
+                throw new UncheckedIOException(new IOException());
+            }
+            return i;
+        }).prefetch(2, executor);
+        var list = new ArrayList<Integer>();
+        assertThrows(UncheckedIOException.class, () -> sequence.forEach(list::add));
+        assertEquals(List.of(1, 2), list);
+        assertFalse(sequence.hasNext());
+    }
+
+    @Test
+    void close() throws InterruptedException {
+        var pulled = new AtomicInteger();
+        var sequence = Sequence.generate(() -> 1).peek(i -> pulled.incrementAndGet()).prefetch(4, executor);
+        assertEquals(Integer.valueOf(1), sequence.next());
+        sequence.close();
+        assertFalse(sequence.hasNext());
+        executor.shutdown();
+        // the producer stops after closed
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(pulled.get() >= 1);
+    }
+
+    @Test
+    void interrupted() {
+        var expected = Sequence.generate(i -> (int) i).take(100).toImmutableList();
+        var sequence = Sequence.of(expected).prefetch(1, executor);
+        assertEquals(Integer.valueOf(0), sequence.next());
+        executor.shutdownNow();
+        var list = new ArrayList<Integer>();
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(CancellationException.class, () -> sequence.forEach(list::add)));
+        assertTrue(list.size() < 99);
+        assertFalse(sequence.hasNext());
+    }
+
+    @Test
+    void closeFromAnotherThread() throws InterruptedException {
+        var latch = new CountDownLatch(1);
+        var sequence = Sequence.generate(() -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        }).prefetch(2, executor);
+        var closer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignore) {
+            }
+            sequence.close();
+        });
+        closer.start();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertFalse(sequence.hasNext()));
+        } finally {
+            latch.countDown();
+            closer.join();
+        }
+    }
+
+    @Test
+    void closeNotStarted() {
+        var sorted = Sequence.of(3, 1, 2).sortedBy(Comparator.naturalOrder(), SpillCodec.serializable(),
+                SpillOptions.of(1));
+        var sequence = sorted.prefetch(2, executor);
+        sequence.close();
+        assertFalse(sequence.hasNext());
+        // the upstream is closed
+        assertFalse(sorted.hasNext());
+    }
+
+    @Test
+    void rejected() {
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException();
+        };
+        var sequence = Sequence.of(1, 2).prefetch(2, rejecting);
+        assertThrows(RejectedExecutionException.class, sequence::hasNext);
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(RejectedExecutionException.class, sequence::hasNext));
+    }
+}
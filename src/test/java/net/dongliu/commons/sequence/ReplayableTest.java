@@ -0,0 +1,117 @@
+package net.dongliu.commons.sequence;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ReplayableTest {
+
+    @Test
+    void cache() {
+        var pulled = new AtomicInteger();
+        var replayable = Sequence.of(1, 2, 3).peek(i -> pulled.incrementAndGet()).cache();
+        assertEquals(0, pulled.get());
+        var first = replayable.sequence();
+        assertEquals(Integer.valueOf(1), first.next());
+        assertEquals(List.of(1, 2, 3), replayable.sequence().toImmutableList());
+        assertEquals(List.of(2, 3), first.toImmutableList());
+        var list = new ArrayList<Integer>();
+        for (Integer i : replayable) {
+            list.add(i);
+        }
+        assertEquals(List.of(1, 2, 3), list);
+        assertEquals(3, pulled.get());
+
+        assertFalse(Sequence.of().cache().sequence().hasNext());
+    }
+
+    @Test
+    void spill() {
+        var expected = Sequence.generate(i -> (int) i).take(5000).toImmutableList();
+        try (var replayable = Sequence.of(expected).cache(SpillCodec.serializable(), SpillOptions.of(100))) {
+            var s1 = replayable.sequence();
+            var s2 = replayable.sequence();
+            var list1 = new ArrayList<Integer>();
+            var list2 = new ArrayList<Integer>();
+            while (s1.hasNext() || s2.hasNext()) {
+                if (s1.hasNext()) {
+                    list1.add(s1.next());
+                }
+                if (s2.hasNext()) {
+                    list2.add(s2.next());
+                }
+            }
+            assertEquals(expected, list1);
+            assertEquals(expected, list2);
+            assertEquals(expected, replayable.sequence().toImmutableList());
+        }
+    }
+
+    @Test
+    void concurrent() {
+        var expected = Sequence.generate(i -> (int) i).take(10000).toImmutableList();
+        var pulled = new AtomicInteger();
+        try (var replayable = Sequence.of(expected).peek(i -> pulled.incrementAndGet())
+                .cache(SpillCodec.serializable(), SpillOptions.of(1000))) {
+            var futures = Sequence.generate(i -> CompletableFuture.supplyAsync(() -> replayable.sequence()
+                    .toImmutableList())).take(4).toImmutableList();
+            for (var future : futures) {
+                assertEquals(expected, future.join());
+            }
+        }
+        assertEquals(10000, pulled.get());
+    }
+
+    @Test
+    void close() {
+        var replayable = Sequence.of(1, 2).cache(SpillCodec.serializable(), SpillOptions.of(1));
+        var sequence = replayable.sequence();
+        sequence.next();
+        replayable.close();
+        assertThrows(IllegalStateException.class, sequence::hasNext);
+    }
+
+    @Test
+    void closeReaders() throws IOException {
+        assumeTrue(Files.isDirectory(Path.of("/proc/self/fd")));
+        var directory = Files.createTempDirectory("sequence-test-");
+        try {
+            var replayable = Sequence.of(1, 2, 3, 4).cache(SpillCodec.serializable(),
+                    SpillOptions.of(1).withTempDirectory(directory));
+            var first = replayable.sequence();
+            var second = replayable.sequence();
+            first.next();
+            first.next();
+            second.next();
+            second.next();
+            assertEquals(2, openFiles(directory));
+            replayable.close();
+            assertEquals(0, openFiles(directory));
+            assertEquals(0, Files.list(directory).count());
+        } finally {
+            Files.delete(directory);
+        }
+    }
+
+    // count of files under the directory opened by this process
+    private static long openFiles(Path directory) throws IOException {
+        try (var fds = Files.list(Path.of("/proc/self/fd"))) {
+            return fds.filter(fd -> {
+                try {
+                    return Files.readSymbolicLink(fd).startsWith(directory);
+                } catch (IOException e) {
+                    return false;
+                }
+            }).count();
+        }
+    }
+}
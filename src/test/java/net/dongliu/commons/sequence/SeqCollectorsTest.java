@@ -1,12 +1,16 @@
 package net.dongliu.commons.sequence;
 
+import net.dongliu.commons.sketch.HeavyHitters;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.SplittableRandom;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SeqCollectorsTest {
 
@@ -41,4 +45,90 @@ class SeqCollectorsTest {
         var collector2 = SeqCollectors.min();
         assertThrows(NullPointerException.class, () -> collector2.accept(null));
     }
-}
\ No newline at end of file
+
+    @Test
+    void cardinality() {
+        var sketch = Sequence.generate(i -> i % 10_000).take(100_000).collect(SeqCollectors.cardinality(14));
+        assertEquals(10_000, sketch.estimate(), 10_000 * 0.05);
+        assertEquals(0, Sequence.of().collect(SeqCollectors.cardinality(10)).estimate());
+
+        var hashed = Sequence.generate(i -> i).take(100_000)
+                .collect(SeqCollectors.cardinality(12, i -> new SplittableRandom(i).nextLong()));
+        assertEquals(100_000, hashed.estimate(), 100_000 * 0.1);
+    }
+
+    @Test
+    void quantiles() {
+        var sketch = Sequence.generate(i -> (i * 7919) % 100_000).take(100_000).collect(SeqCollectors.quantiles());
+        assertEquals(100_000, sketch.count());
+        assertEquals(50_000, sketch.quantile(0.5), 100_000 * 0.02);
+        assertEquals(99_000, sketch.quantile(0.99), 100_000 * 0.02);
+        assertEquals(0, sketch.quantile(0));
+        assertEquals(99_999, sketch.quantile(1));
+
+        var latencies = Sequence.of("1ms", "3ms", "2ms").collect(SeqCollectors.quantiles(8,
+                s -> Double.parseDouble(s.substring(0, s.length() - 2))));
+        assertEquals(2, latencies.quantile(0.5));
+    }
+
+    @Test
+    void heavyHitters() {
+        // ip0 occurs 1000 times, ip1 500 times, and 10000 ips once
+        var ips = Sequence.generate(i -> "ip" + i).take(10_000)
+                .concat(Sequence.generate(i -> "ip0").take(1000))
+                .concat(Sequence.generate(i -> "ip1").take(500));
+        var sketch = ips.collect(SeqCollectors.heavyHitters(100));
+        var top = sketch.top(2);
+        assertEquals(List.of("ip0", "ip1"), Sequence.of(top).map(HeavyHitters.Item::item).toImmutableList());
+        assertTrue(top.get(0).guaranteedCount() <= 1001 && top.get(0).count() >= 1001);
+        assertEquals(11_500, sketch.total());
+    }
+
+    @Test
+    void reservoir() {
+        assertEquals(List.of(1, 2), Sequence.of(1, 2).sample(3));
+        assertEquals(3, Sequence.generate(i -> i).take(100_000).sample(3).size());
+
+        // every element should be chosen with probability k / n
+        var random = new Random(1);
+        var hits = new int[10];
+        for (int round = 0; round < 10_000; round++) {
+            for (var i : Sequence.generate(i -> (int) i).take(10).collect(SeqCollectors.reservoir(2, random))) {
+                hits[i]++;
+            }
+        }
+        for (int hit : hits) {
+            assertEquals(2_000, hit, 200);
+        }
+
+        var large = Sequence.generate(i -> i).take(1_000_000).collect(SeqCollectors.reservoir(1000, random));
+        assertEquals(1000, large.size());
+        assertEquals(1000, Sequence.of(large).distinct().count());
+        double mean = Sequence.of(large).averageLong(Long::longValue);
+        assertEquals(500_000, mean, 50_000);
+    }
+
+    @Test
+    void weightedReservoir() {
+        var random = new Random(1);
+        // weight of element i is i, element 0 has zero weight and is never chosen
+        var hits = new int[5];
+        for (int round = 0; round < 20_000; round++) {
+            for (var i : Sequence.of(0, 1, 2, 3, 4).collect(SeqCollectors.weightedReservoir(1, i -> i, random))) {
+                hits[i]++;
+            }
+        }
+        assertEquals(0, hits[0]);
+        for (int i = 1; i < 5; i++) {
+            assertEquals(20_000 * i / 10.0, hits[i], 400);
+        }
+
+        var sample = Sequence.generate(i -> i).take(100_000)
+                .collect(SeqCollectors.weightedReservoir(100, i -> i < 100 ? 1_000_000 : 1, random));
+        assertEquals(100, sample.size());
+        assertTrue(Sequence.of(sample).filter(i -> i < 100).count() > 90);
+        assertEquals(List.of(), Sequence.<Integer>of().collect(SeqCollectors.weightedReservoir(1, i -> i)));
+        assertThrows(IllegalArgumentException.class, () -> Sequence.of(-1)
+                .collect(SeqCollectors.weightedReservoir(1, i -> i)));
+    }
+}
@@ -1,11 +1,22 @@
 package net.dongliu.commons.sequence;
 
 import net.dongliu.commons.collection.Pair;
+import net.dongliu.commons.concurrent.Futures;
+import net.dongliu.commons.concurrent.Threads;
 import net.dongliu.commons.collection.PartitionResult;
 import org.junit.jupiter.api.Test;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static java.util.Comparator.naturalOrder;
@@ -45,12 +56,94 @@ class SequenceTest {
         assertEquals(List.of(), Sequence.of().concat(List.of()).toImmutableList());
     }
 
+    @Test
+    void concatMany() {
+        Sequence<Integer> appended = Sequence.of();
+        Sequence<Integer> prepended = Sequence.of();
+        for (int i = 0; i < 100_000; i++) {
+            appended = appended.concat(Sequence.of(i));
+            prepended = Sequence.of(i).concat(prepended);
+        }
+        assertEquals(100_000L, appended.count());
+        assertEquals(Optional.of(0), prepended.last());
+
+        Sequence<Integer> nested = Sequence.of(0);
+        for (int i = 0; i < 10_000; i++) {
+            var inner = nested;
+            nested = Sequence.of(1).flatMap(v -> inner);
+        }
+        assertEquals(List.of(0), nested.toImmutableList());
+    }
+
     @Test
     void map() {
         assertEquals(List.of(1, 2, 3), Sequence.of("1", "2", "3").map(Integer::valueOf).toImmutableList());
         assertFalse(Sequence.of().map(Object::toString).hasNext());
     }
 
+    @Test
+    void mapToPrimitive() {
+        assertEquals(6, Sequence.of("1", "2", "3").mapToInt(Integer::parseInt).sum());
+        assertEquals(6L, Sequence.of("1", "2", "3").mapToLong(Long::parseLong).sum());
+        assertEquals(2.0, Sequence.of("1", "2", "3").mapToDouble(Double::parseDouble).average());
+    }
+
+    @Test
+    void mapAsync() {
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var inFlight = new AtomicInteger();
+            var maxInFlight = new AtomicInteger();
+            var result = Sequence.generate(i -> i).take(20).mapAsync(i -> CompletableFuture.supplyAsync(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                Threads.sleepMills((20 - i) % 3);
+                inFlight.decrementAndGet();
+                return i * 2;
+            }, executor), 3).toImmutableList();
+            assertEquals(Sequence.generate(i -> i * 2).take(20).toImmutableList(), result);
+            assertTrue(maxInFlight.get() <= 3);
+
+            var futures = List.of(new CompletableFuture<Integer>(), new CompletableFuture<Integer>(),
+                    new CompletableFuture<Integer>());
+            var unordered = Sequence.of(2, 0, 1).mapAsyncUnordered(futures::get, 3);
+            assertTrue(unordered.hasNext());
+            for (int i = 0; i < futures.size(); i++) {
+                futures.get(i).complete(i);
+            }
+            assertEquals(List.of(0, 1, 2), unordered.toImmutableList());
+
+            // the failure is reported at the next take, not waiting for the head one
+            var failed = Sequence.of(0, 1)
+                    .mapAsync(i -> i == 0 ? CompletableFuture.completedFuture(0) : Futures.<Integer>error(new IOException()), 2);
+            assertThrows(CompletionException.class, failed::next);
+            var never = new CompletableFuture<Integer>();
+            var sequence = Sequence.of(0, 1).mapAsync(i -> i == 0 ? never : Futures.<Integer>error(new IOException()), 2);
+            assertThrows(CompletionException.class, sequence::next);
+            assertTrue(never.isCancelled());
+            assertFalse(sequence.hasNext());
+
+            // the mapper throws
+            var pending = new CompletableFuture<Integer>();
+            var throwing = Sequence.of(0, 1, 2).mapAsync(i -> i == 0 ? pending : null, 3);
+            assertThrows(NullPointerException.class, throwing::hasNext);
+            assertTrue(pending.isCancelled());
+            assertFalse(throwing.hasNext());
+            var pendingUnordered = new CompletableFuture<Integer>();
+            var throwingUnordered = Sequence.of(0, 1, 2).mapAsyncUnordered(i -> {
+                if (i == 2) {
+                    throw new IllegalStateException();
+                }
+                return i == 0 ? CompletableFuture.completedFuture(0) : pendingUnordered;
+            }, 2);
+            assertEquals(Integer.valueOf(0), throwingUnordered.next());
+            assertThrows(IllegalStateException.class, throwingUnordered::hasNext);
+            assertTrue(pendingUnordered.isCancelled());
+            assertFalse(throwingUnordered.hasNext());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     void filter() {
         assertEquals(List.of(3), Sequence.of(1, 2, 3).filter(i -> i > 2).toImmutableList());
@@ -58,6 +151,43 @@ class SequenceTest {
         assertEquals(List.of(), Sequence.<Integer>of().filter(i -> i > 3).toImmutableList());
     }
 
+    @Test
+    void fusedStages() {
+        var peeked = new ArrayList<Integer>();
+        var sequence = Sequence.of(1, 2, 3, 4, 5).map(i -> i + 1).filter(i -> i % 2 == 0).peek(peeked::add).map(i -> i * 10);
+        assertEquals(List.of(20, 40, 60), sequence.toImmutableList());
+        assertEquals(List.of(2, 4, 6), peeked);
+
+        var result = new ArrayList<Integer>();
+        Sequence.of(1, 2, 3, 4).filter(i -> i > 1).map(i -> -i).forEach(result::add);
+        assertEquals(List.of(-2, -3, -4), result);
+
+        // a value already buffered by hasNext
+        var filtered = Sequence.of(1, 2, 3, 4).filter(i -> i > 2);
+        assertTrue(filtered.hasNext());
+        assertEquals(List.of("3", "4"), filtered.map(String::valueOf).toImmutableList());
+
+        var mapped = Sequence.of(1, 2, 3).map(i -> i * 2);
+        assertEquals(Integer.valueOf(2), mapped.next());
+        result.clear();
+        mapped.filter(i -> i > 0).forEach(result::add);
+        assertEquals(List.of(4, 6), result);
+
+        // size preserving stages are only called in next
+        var calls = new AtomicInteger();
+        var lazy = Sequence.of(1, 2, 3).map(i -> calls.incrementAndGet()).peek(i -> calls.incrementAndGet());
+        assertTrue(lazy.hasNext());
+        assertTrue(lazy.hasNext());
+        assertEquals(0, calls.get());
+        lazy.next();
+        assertEquals(2, calls.get());
+        var throwing = Sequence.of(1).map(i -> {
+            throw new IllegalStateException();
+        });
+        assertTrue(throwing.hasNext());
+        assertThrows(IllegalStateException.class, throwing::next);
+    }
+
     @Test
     void flatMap() {
         assertEquals(List.of(1, 1, 1, 2), Sequence.of(1, 2).flatMap(i -> Sequence.of(1, i)).toImmutableList());
@@ -80,6 +210,41 @@ class SequenceTest {
     }
 
 
+    @Test
+    void distinctByRecent() {
+        var sequence = Sequence.of(1, 2, 1, 3, 4, 1, 4).distinctByRecent(i -> i, 2);
+        assertEquals(List.of(1, 2, 3, 4, 1), sequence.toImmutableList());
+        assertEquals(2, sequence.dropped());
+        assertEquals(3, sequence.evicted());
+    }
+
+    @Test
+    void distinctByWithin() {
+        // key, time
+        var sequence = Sequence.of("a1", "b2", "a3", "b6", "b9", "a9").distinctByWithin(s -> s.charAt(0),
+                s -> s.charAt(1) - '0', 5);
+        assertEquals(List.of("a1", "b2", "a9"), sequence.toImmutableList());
+        assertEquals(3, sequence.dropped());
+        assertEquals(1, sequence.evicted());
+    }
+
+    @Test
+    void distinctByApproximate() {
+        var sequence = Sequence.generate(i -> i % 1000).take(3000).distinctByApproximate(i -> i, 1000, 0.01);
+        long count = sequence.count();
+        assertTrue(count <= 1000 && count > 950);
+        assertEquals(3000 - count, sequence.dropped());
+        assertEquals(0, sequence.evicted());
+        assertThrows(IllegalArgumentException.class, () -> Sequence.of(1).distinctByApproximate(i -> i, 10, 1));
+
+        // i and i << 32 have the same hashCode
+        var values = Sequence.generate(i -> i % 1000).take(1000).flatMap(i -> Sequence.of(i, i << 32))
+                .toImmutableList();
+        assertTrue(Sequence.of(values).distinctByApproximate(i -> i, 2000, 0.01).count() <= 1000);
+        count = Sequence.of(values).distinctByApproximateHash(Long::longValue, 2000, 0.01).count();
+        assertTrue(count <= 2000 && count > 1900);
+    }
+
     @Test
     void filterNonNull() {
         assertEquals(List.of(1, 2), Sequence.of(1, 2).filterNonNull().toImmutableList());
@@ -136,6 +301,30 @@ class SequenceTest {
         assertEquals(List.of(), Sequence.of().chunked(2).toImmutableList());
     }
 
+    @Test
+    void chunkedInto() {
+        assertEquals(List.of(List.of(1, 2), List.of(3)),
+                Sequence.of(1, 2, 3).chunkedInto(2).map(List::copyOf).toImmutableList());
+        var chunks = Sequence.of(1, 2, 3, 4).chunkedInto(2);
+        var first = chunks.next();
+        assertSame(first, chunks.next());
+        assertEquals(List.of(3, 4), first);
+        assertThrows(UnsupportedOperationException.class, () -> first.add(5));
+        assertEquals(List.of(), Sequence.of().chunkedInto(2).toImmutableList());
+    }
+
+    @Test
+    void windowed() {
+        assertEquals(List.of(List.of(1, 2, 3), List.of(2, 3, 4), List.of(3, 4, 5)),
+                Sequence.of(1, 2, 3, 4, 5).windowed(3, 1).map(List::copyOf).toImmutableList());
+        assertEquals(List.of(List.of(1, 2, 3), List.of(3, 4, 5)),
+                Sequence.of(1, 2, 3, 4, 5, 6).windowed(3, 2).map(List::copyOf).toImmutableList());
+        assertEquals(List.of(List.of(1, 2), List.of(5, 6)),
+                Sequence.of(1, 2, 3, 4, 5, 6, 7).windowed(2, 4).map(List::copyOf).toImmutableList());
+        assertEquals(List.of(), Sequence.of(1, 2).windowed(3, 1).toImmutableList());
+        assertEquals(List.of(), Sequence.of().windowed(3, 1).toImmutableList());
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     void forEach() {
@@ -154,6 +343,22 @@ class SequenceTest {
         verify(consumer).accept(eq(2));
     }
 
+    @Test
+    void bulkTerminals() {
+        assertEquals(4L, Sequence.of(List.of(1, 2, 3, 4)).count());
+        assertEquals(3L, Sequence.of(new LinkedList<>(List.of(1, 2, 3))).count());
+        assertEquals(List.of(2, 3), Sequence.of(1, 2, 3).dropWhile(i -> i < 2).toArrayList());
+        assertEquals(List.of(1, 2, 3, 4), Sequence.of(1, 2).concat(Sequence.of(3, 4)).toArrayList());
+        assertEquals(Optional.of(3), Sequence.of(1, 3, 2).maxBy(naturalOrder()));
+        assertEquals(Optional.of(2), Sequence.of(1, 3, 2).last());
+        assertEquals(Optional.of(3), Sequence.of(1, 3, 2).sorted().last());
+
+        var sequence = Sequence.of(1, 2, 3);
+        sequence.next();
+        assertEquals(List.of(2, 3), sequence.toArrayList());
+        assertFalse(sequence.hasNext());
+    }
+
     @Test
     void reduce() {
         assertEquals(Integer.valueOf(4), Sequence.of(1, 2).reduce(1, (prev, now) -> prev + now));
@@ -330,7 +535,24 @@ class SequenceTest {
     @Test
     void asStream() {
         assertEquals(List.of(1, 2, 3), Sequence.of(1, 2, 3).asStream().collect(Collectors.toList()));
+        assertEquals(List.of(), Sequence.of().asStream().collect(Collectors.toList()));
 
+        var list = Sequence.generate(i -> i).take(10000).toArrayList();
+        var spliterator = Sequence.of(list).map(i -> i * 2).asStream().spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(10000, spliterator.estimateSize());
+        assertEquals(5000, spliterator.trySplit().estimateSize());
+
+        var slice = Sequence.of(list).drop(100).take(1000).asStream().spliterator();
+        assertTrue(slice.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(1000, slice.estimateSize());
+        assertEquals(List.of(100L, 101L), Sequence.of(list).drop(100).take(2).asStream().collect(Collectors.toList()));
+
+        assertEquals(Sequence.of(list).sumLong(i -> i * 2),
+                Sequence.of(list).map(i -> i * 2).asStream().parallel().mapToLong(i -> i).sum());
+        assertEquals(Sequence.of(list).filter(i -> i % 3 == 0).toArrayList(),
+                Sequence.of(list.iterator()).filter(i -> i % 3 == 0).asStream().parallel().collect(Collectors.toList()));
+        assertFalse(Sequence.of(list).filter(i -> i > 0).asStream().spliterator().hasCharacteristics(Spliterator.SIZED));
     }
 
     @Test
@@ -342,6 +564,250 @@ class SequenceTest {
         assertThrows(ClassCastException.class, () -> Sequence.of(new Object(), new Object()).sorted().toImmutableList());
     }
 
+    @Test
+    void topK() {
+        assertEquals(List.of(1, 2), Sequence.of(5, 3, 1, 4, 2).sortedBy(naturalOrder()).take(2).toImmutableList());
+        assertEquals(List.of(1, 2, 3, 4, 5), Sequence.of(5, 3, 1, 4, 2).sorted().take(10).toImmutableList());
+        assertEquals(List.of(1, 2), Sequence.of(5, 3, 1, 4, 2).bottomK(2, naturalOrder()).toImmutableList());
+        assertEquals(List.of(5, 4, 3), Sequence.of(5, 3, 1, 4, 2).topK(3, naturalOrder()).toImmutableList());
+        assertEquals(List.of(), Sequence.of(5, 3, 1).topK(0, naturalOrder()).toImmutableList());
+        assertEquals(List.of(), Sequence.<Integer>of().topK(3, naturalOrder()).toImmutableList());
+
+        // stable for equal elements
+        var values = Sequence.generate(i -> "" + (char) ('a' + i % 3) + i).take(30).toImmutableList();
+        Comparator<String> comparator = Comparator.comparing(s -> s.charAt(0));
+        assertEquals(Sequence.of(values).sortedBy(comparator).toImmutableList().subList(0, 12),
+                Sequence.of(values).sortedBy(comparator).take(12).toImmutableList());
+        assertEquals(List.of("c2", "c5", "c8"), Sequence.of(values).topK(3, comparator).toImmutableList());
+    }
+
+    @Test
+    void sortedBySpill() {
+        var codec = new SpillCodec<Integer>() {
+            @Override
+            public void write(DataOutput out, Integer value) throws IOException {
+                out.writeInt(value);
+            }
+
+            @Override
+            public Integer read(DataInput in) throws IOException {
+                return in.readInt();
+            }
+        };
+        var options = SpillOptions.of(3);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), Sequence.of(5, 3, 8, 0, 9, 1, 7, 2, 6, 4)
+                .sortedBy(naturalOrder(), codec, options).toImmutableList());
+        assertEquals(List.of(0, 1, 2), Sequence.of(5, 3, 8, 0, 9, 1, 7, 2, 6, 4)
+                .sortedBy(naturalOrder(), codec, options).take(3).toImmutableList());
+        assertEquals(List.of(1, 2), Sequence.of(2, 1).sortedBy(naturalOrder(), codec, options).toImmutableList());
+        assertEquals(List.of(), Sequence.<Integer>of().sortedBy(naturalOrder(), codec, options).toImmutableList());
+
+        assertEquals(List.of("b1", "a2", "b2", "a3"), Sequence.of("a3", "b1", "a2", "b2")
+                .sortedBy(Comparator.comparing(s -> s.charAt(1)), SpillCodec.serializable(), SpillOptions.of(1))
+                .toImmutableList());
+    }
+
+    @Test
+    void sortedBySpillCleanup() throws IOException {
+        var directory = Files.createTempDirectory("sequence-test-");
+        var options = SpillOptions.of(1).withTempDirectory(directory);
+        try {
+            // more runs than the merge fan-in, need multi merge passes
+            var values = Sequence.generate(i -> Pair.of((int) (i * 7919 % 100), (int) i)).take(300).toImmutableList();
+            Comparator<Pair<Integer, Integer>> comparator = Comparator.comparing(Pair::first);
+            assertEquals(Sequence.of(values).sortedBy(comparator).toImmutableList(),
+                    Sequence.of(values).sortedBy(comparator, SpillCodec.serializable(), options).toImmutableList());
+            assertEquals(0, Files.list(directory).count());
+
+            assertEquals(List.of(0, 1, 2), Sequence.of(5, 3, 8, 0, 9, 1, 7, 2, 6, 4)
+                    .sortedBy(naturalOrder(), SpillCodec.serializable(), options).take(3).toImmutableList());
+            assertEquals(0, Files.list(directory).count());
+
+            var sorted = Sequence.of(5, 3, 8, 0, 9, 1, 7, 2, 6, 4)
+                    .sortedBy(naturalOrder(), SpillCodec.serializable(), options);
+            assertEquals(0, (int) sorted.next());
+            assertEquals(Optional.of(1), sorted.first());
+            assertFalse(sorted.hasNext());
+            assertEquals(0, Files.list(directory).count());
+
+            try (var closed = Sequence.of(5, 3, 8, 0, 9).sortedBy(naturalOrder(), SpillCodec.serializable(), options)) {
+                assertEquals(0, (int) closed.next());
+                assertNotEquals(0, Files.list(directory).count());
+            }
+            assertEquals(0, Files.list(directory).count());
+        } finally {
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void groupAndReduceSpill() {
+        var expected = Sequence.generate(i -> (int) i).take(1000).groupAndReduce(i -> i % 100, () -> 0, Integer::sum);
+        for (int maxInMemory : new int[]{1, 7, 100, 1000}) {
+            var map = Sequence.generate(i -> (int) i).take(1000)
+                    .groupAndReduce(i -> i % 100, () -> 0, Integer::sum, Integer::sum,
+                            SpillCodec.<Integer>serializable(), SpillCodec.<Integer>serializable(),
+                            SpillOptions.of(maxInMemory))
+                    .toHashMap(Map.Entry::getKey, Map.Entry::getValue);
+            assertEquals(expected, map);
+        }
+        assertFalse(Sequence.<Integer>of().groupAndReduce(i -> i, () -> 0, Integer::sum, Integer::sum,
+                SpillCodec.<Integer>serializable(), SpillCodec.<Integer>serializable(), SpillOptions.of(1)).hasNext());
+
+        var lists = Sequence.of("a1", "b1", "c1", "a2", "d1", "b2", "a3")
+                .groupToList(s -> s.charAt(0), SpillCodec.<Character>serializable(), SpillCodec.<String>serializable(),
+                        SpillOptions.of(2))
+                .toHashMap(Map.Entry::getKey, Map.Entry::getValue);
+        assertEquals(Map.of('a', List.of("a1", "a2", "a3"), 'b', List.of("b1", "b2"), 'c', List.of("c1"),
+                'd', List.of("d1")), lists);
+    }
+
+    @Test
+    void groupAndReduceSpillCleanup() throws IOException {
+        var directory = Files.createTempDirectory("sequence-test-");
+        var options = SpillOptions.of(3).withTempDirectory(directory);
+        try {
+            assertEquals(100, Sequence.generate(i -> (int) i).take(1000)
+                    .groupAndReduce(i -> i % 100, () -> 0, Integer::sum, Integer::sum,
+                            SpillCodec.<Integer>serializable(), SpillCodec.<Integer>serializable(), options)
+                    .count());
+            assertEquals(0, Files.list(directory).count());
+
+            try (var grouped = Sequence.generate(i -> (int) i).take(1000)
+                    .groupAndReduce(i -> i % 100, () -> 0, Integer::sum, Integer::sum,
+                            SpillCodec.<Integer>serializable(), SpillCodec.<Integer>serializable(), options)) {
+                grouped.next();
+                assertNotEquals(0, Files.list(directory).count());
+            }
+            assertEquals(0, Files.list(directory).count());
+
+            var failed = Sequence.generate(i -> (int) i).take(1000)
+                    .groupAndReduce(i -> i % 100, () -> 0, (r, i) -> {
+                                if (i == 500) {
+                                    throw new IllegalStateException();
+                                }
+                                return r + i;
+                            }, Integer::sum,
+                            SpillCodec.<Integer>serializable(), SpillCodec.<Integer>serializable(), options);
+            assertThrows(IllegalStateException.class, failed::hasNext);
+            assertEquals(0, Files.list(directory).count());
+        } finally {
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void hashJoin() {
+        var customers = List.of(Pair.of(1, "Tom"), Pair.of(2, "Jim"), Pair.of(2, "Jimmy"));
+        var orders = List.of(Pair.of("o1", 2), Pair.of("o2", 3), Pair.of("o3", 1));
+        assertEquals(List.of("o1:Jim", "o1:Jimmy", "o3:Tom"), Sequence.of(orders)
+                .hashJoin(Sequence.of(customers), Pair::second, Pair::first, (o, c) -> o.first() + ":" + c.second())
+                .toImmutableList());
+        assertEquals(List.of(Pair.of("o1", "Jim"), Pair.of("o1", "Jimmy"), Pair.of("o3", "Tom")), Sequence.of(orders)
+                .hashJoin(Sequence.of(customers), Pair::second, Pair::first)
+                .map(p -> Pair.of(p.first().first(), p.second().second()))
+                .toImmutableList());
+        assertEquals(List.of("o1:Jim", "o1:Jimmy", "o2:null", "o3:Tom"), Sequence.of(orders)
+                .leftHashJoin(Sequence.of(customers), Pair::second, Pair::first,
+                        (o, c) -> o.first() + ":" + (c == null ? null : c.second()))
+                .toImmutableList());
+        var left = Sequence.of(orders).leftHashJoin(Sequence.of(customers), Pair::second, Pair::first);
+        assertTrue(left.hasNext());
+        assertTrue(left.hasNext());
+        assertEquals(List.of(Optional.of("Jim"), Optional.of("Jimmy"), Optional.empty(), Optional.of("Tom")),
+                left.map(p -> p.second().map(Pair::second)).toImmutableList());
+        assertEquals(List.of(), Sequence.of(orders).hashJoin(Sequence.<Pair<Integer, String>>of(), Pair::second,
+                Pair::first).toImmutableList());
+    }
+
+    @Test
+    void mergeJoin() {
+        var left = List.of(1, 2, 2, 4, 6, 7);
+        var right = List.of("0a", "2a", "2b", "3a", "4a", "7a", "8a");
+        Function<String, Integer> rightKey = s -> s.charAt(0) - '0';
+        assertEquals(List.of("2:2a", "2:2b", "2:2a", "2:2b", "4:4a", "7:7a"), Sequence.of(left)
+                .mergeJoin(Sequence.of(right), i -> i, rightKey, naturalOrder(), (i, s) -> i + ":" + s)
+                .toImmutableList());
+        assertEquals(List.of(Pair.of(4, "4a"), Pair.of(7, "7a")), Sequence.of(4, 7)
+                .mergeJoin(Sequence.of(right), i -> i, rightKey, naturalOrder()).toImmutableList());
+        assertEquals(List.of("1:null", "2:2a", "2:2b", "2:2a", "2:2b", "4:4a", "6:null", "7:7a"), Sequence.of(left)
+                .leftMergeJoin(Sequence.of(right), i -> i, rightKey, naturalOrder(), (i, s) -> i + ":" + s)
+                .toImmutableList());
+        assertEquals(List.of(Pair.of(9, Optional.empty())), Sequence.of(9)
+                .leftMergeJoin(Sequence.of(right), i -> i, rightKey, naturalOrder()).toImmutableList());
+        assertEquals(List.of(), Sequence.of(left)
+                .mergeJoin(Sequence.<String>of(), i -> i, rightKey, naturalOrder()).toImmutableList());
+    }
+
+    @Test
+    void mergeSorted() {
+        var sequences = List.of(Sequence.of(1, 4, 7, 7), Sequence.<Integer>of(), Sequence.of(2, 4, 8), Sequence.of(0, 9));
+        assertEquals(List.of(0, 1, 2, 4, 4, 7, 7, 8, 9), Sequence.mergeSorted(sequences, naturalOrder())
+                .toImmutableList());
+        assertEquals(List.of("a1", "a2", "b1", "b2"), Sequence.mergeSorted(List.of(Sequence.of("a1", "b1"),
+                Sequence.of("a2", "b2")), Comparator.comparing(s -> s.charAt(0))).toImmutableList());
+        assertEquals(List.of(0, 1, 2, 4, 7, 8, 9), Sequence.mergeSorted(List.of(Sequence.of(1, 4, 7, 7),
+                Sequence.of(2, 4, 8), Sequence.of(0, 9)), naturalOrder(), true).toImmutableList());
+        assertFalse(Sequence.mergeSorted(List.<Sequence<Integer>>of(), naturalOrder()).hasNext());
+
+        var shards = Sequence.generate(i -> Sequence.generate(j -> j * 50 + i).take(100)).take(50).toArrayList();
+        assertEquals(Sequence.generate(i -> i).take(5000).toImmutableList(),
+                Sequence.mergeSorted(shards, naturalOrder()).toImmutableList());
+    }
+
+    @Test
+    void zipWith() {
+        assertEquals(List.of("1a", "2b"), Sequence.of(1, 2, 3).zipWith(Sequence.of("a", "b"), (i, s) -> i + s)
+                .toImmutableList());
+        assertEquals(List.of(), Sequence.of(1, 2, 3).zipWith(Sequence.<String>of(), (i, s) -> i + s).toImmutableList());
+
+        var columns = Sequence.zipToColumns(Sequence.of(1, 2, 3), Sequence.of("a", "b"));
+        assertEquals(List.of(Pair.of(1, "a"), Pair.of(2, "b")), columns);
+        assertEquals(List.of(1, 2), columns.firsts());
+        assertEquals(List.of("a", "b"), columns.seconds());
+    }
+
+    @Test
+    void skipSized() {
+        var list = Sequence.generate(i -> (int) i).take(10_000).toImmutableList();
+        var mapped = new AtomicInteger();
+        assertEquals(Optional.of(9_998), Sequence.of(list).map(i -> {
+            mapped.incrementAndGet();
+            return i * 2;
+        }).at(4_999));
+        assertEquals(1, mapped.get());
+        assertEquals(Optional.empty(), Sequence.of(list).map(i -> i * 2).at(10_000));
+        assertEquals(10_000, Sequence.of(list).peek(i -> mapped.incrementAndGet()).count());
+        assertEquals(1, mapped.get());
+        assertEquals(Optional.of(9_999), Sequence.of(list).map(i -> i).last());
+        assertEquals(List.of(9_998, 9_999), Sequence.of(list).drop(9_000).drop(998).toImmutableList());
+        assertEquals(List.of(5, 6), Sequence.of(list).drop(3).take(5).drop(2).take(2).toImmutableList());
+        assertEquals(3, Sequence.of(list).drop(3).take(5).drop(2).count());
+        assertEquals(0, Sequence.of(list).drop(20_000).count());
+
+        // map then drop or take
+        var small = list.subList(0, 1000);
+        Function<Integer, Integer> counting = i -> {
+            mapped.incrementAndGet();
+            return i;
+        };
+        mapped.set(0);
+        assertEquals(995, Sequence.of(small).map(counting).drop(5).count());
+        assertEquals(0, mapped.get());
+        assertEquals(Optional.of(899), Sequence.of(small).map(counting).take(900).last());
+        assertEquals(1, mapped.get());
+        mapped.set(0);
+        assertEquals(Optional.of(505), Sequence.of(small).map(counting).drop(5).at(500));
+        assertEquals(1, mapped.get());
+        mapped.set(0);
+        assertEquals(Optional.of(2), Sequence.of(small).map(counting).take(900).drop(2).at(0));
+        assertEquals(1, mapped.get());
+
+        // not sized
+        assertEquals(Optional.of(3), Sequence.of(list).filter(i -> i % 3 == 0).at(1));
+        assertEquals(3_334, Sequence.of(list).filter(i -> i % 3 == 0).count());
+    }
+
     @Test
     void zip() {
         assertFalse(Sequence.zip(Sequence.of(), Sequence.of(1)).hasNext());
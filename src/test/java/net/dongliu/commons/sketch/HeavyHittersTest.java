@@ -0,0 +1,78 @@
+package net.dongliu.commons.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeavyHittersTest {
+
+    @Test
+    public void exact() {
+        var sketch = HeavyHitters.<String>of(10);
+        for (var item : List.of("a", "b", "a", "c", "a", "b")) {
+            sketch.add(item);
+        }
+        assertEquals(0, sketch.maxError());
+        assertEquals(List.of("a", "b", "c"), sketch.items().stream().map(HeavyHitters.Item::item).collect(Collectors.toList()));
+        assertEquals(3, sketch.top(1).get(0).count());
+        assertEquals(3, sketch.top(1).get(0).guaranteedCount());
+        assertTrue(HeavyHitters.of(1).top(1).isEmpty());
+        assertThrows(NullPointerException.class, () -> sketch.add(null));
+    }
+
+    @Test
+    public void bounds() {
+        var random = new Random(1);
+        var sketch = HeavyHitters.<Integer>of(50);
+        var counts = new HashMap<Integer, Long>();
+        for (int i = 0; i < 100_000; i++) {
+            // skewed distribution
+            int item = (int) Math.floor(Math.pow(random.nextDouble(), 4) * 1000);
+            sketch.add(item);
+            counts.merge(item, 1L, Long::sum);
+        }
+        assertTrue(sketch.maxError() <= sketch.total() / sketch.capacity());
+        for (var item : sketch.items()) {
+            long real = counts.get(item.item());
+            assertTrue(item.guaranteedCount() <= real && real <= item.count(), item.toString());
+        }
+        // item 0 is the most frequent
+        assertEquals(Integer.valueOf(0), sketch.top(1).get(0).item());
+        for (var entry : counts.entrySet()) {
+            if (entry.getValue() > sketch.total() / sketch.capacity()) {
+                assertTrue(sketch.items().stream().anyMatch(item -> item.item().equals(entry.getKey())));
+            }
+        }
+    }
+
+    @Test
+    public void merge() {
+        var sketch1 = HeavyHitters.<String>of(3);
+        var sketch2 = HeavyHitters.<String>of(3);
+        for (var item : List.of("a", "a", "a", "b", "c", "d")) {
+            sketch1.add(item);
+        }
+        for (var item : List.of("a", "b", "b", "b", "e")) {
+            sketch2.add(item);
+        }
+        sketch1.merge(sketch2);
+        assertEquals(11, sketch1.total());
+        var top = sketch1.top(2);
+        // a and b both have estimated count 4
+        assertEquals(Set.of("a", "b"), Set.of(top.get(0).item(), top.get(1).item()));
+        for (var item : top) {
+            assertTrue(item.guaranteedCount() <= 4 && item.count() >= 4, item.toString());
+        }
+        assertTrue(sketch1.items().size() <= 3);
+        sketch1.add("a");
+        assertEquals(top.get(0).count() + 1, sketch1.top(1).get(0).count());
+
+        assertThrows(IllegalArgumentException.class, () -> sketch1.merge(HeavyHitters.of(4)));
+    }
+}
@@ -0,0 +1,55 @@
+package net.dongliu.commons.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void estimate() {
+        var sketch = HyperLogLog.of(14);
+        assertEquals(0, sketch.estimate());
+        for (int i = 0; i < 1_000_000; i++) {
+            sketch.add("user" + i % 200_000);
+        }
+        assertEquals(200_000, sketch.estimate(), 200_000 * sketch.relativeError() * 4);
+
+        var small = HyperLogLog.of(10);
+        for (int i = 0; i < 100; i++) {
+            small.add(i);
+        }
+        assertEquals(100, small.estimate(), 5);
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.of(3));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.of(19));
+    }
+
+    @Test
+    public void merge() {
+        var sketch1 = HyperLogLog.of(12);
+        var sketch2 = HyperLogLog.of(12);
+        var all = HyperLogLog.of(12);
+        for (int i = 0; i < 50_000; i++) {
+            (i % 2 == 0 ? sketch1 : sketch2).add(i);
+            all.add(i);
+        }
+        sketch1.merge(sketch2);
+        assertEquals(all.estimate(), sketch1.estimate());
+        assertThrows(IllegalArgumentException.class, () -> sketch1.merge(HyperLogLog.of(10)));
+    }
+
+    @Test
+    public void bytes() {
+        var sketch = HyperLogLog.of(8);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add(i);
+        }
+        byte[] data = sketch.toBytes();
+        assertEquals(1 + 256 * 6 / 8, data.length);
+        var restored = HyperLogLog.fromBytes(data);
+        assertEquals(8, restored.precision());
+        assertEquals(sketch.estimate(), restored.estimate());
+        assertArrayEquals(data, restored.toBytes());
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[]{8, 1}));
+    }
+}
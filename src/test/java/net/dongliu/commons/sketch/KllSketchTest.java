@@ -0,0 +1,78 @@
+package net.dongliu.commons.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KllSketchTest {
+
+    @Test
+    public void quantile() {
+        var sketch = KllSketch.of();
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        var values = new ArrayList<Double>();
+        for (int i = 0; i < 1_000_000; i++) {
+            values.add((double) i);
+        }
+        Collections.shuffle(values);
+        values.forEach(sketch::add);
+        assertEquals(1_000_000, sketch.count());
+        double error = sketch.normalizedRankError() * 1_000_000 * 2;
+        assertEquals(500_000, sketch.quantile(0.5), error);
+        assertEquals(990_000, sketch.quantile(0.99), error);
+        assertEquals(999_000, sketch.quantile(0.999), error);
+        assertEquals(0, sketch.min());
+        assertEquals(999_999, sketch.max());
+        assertEquals(0.25, sketch.rank(250_000), sketch.normalizedRankError() * 2);
+        assertEquals(0, sketch.rank(-1));
+        assertEquals(1, sketch.rank(1_000_000));
+        assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5));
+    }
+
+    @Test
+    public void merge() {
+        var sketches = new ArrayList<KllSketch>();
+        for (int s = 0; s < 8; s++) {
+            var sketch = KllSketch.of(100);
+            for (int i = s; i < 400_000; i += 8) {
+                sketch.add(i);
+            }
+            sketches.add(sketch);
+        }
+        var merged = KllSketch.of(100);
+        sketches.forEach(merged::merge);
+        assertEquals(400_000, merged.count());
+        assertEquals(200_000, merged.quantile(0.5), merged.normalizedRankError() * 400_000 * 2);
+        assertEquals(0, merged.min());
+        assertEquals(399_999, merged.max());
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(KllSketch.of(200)));
+    }
+
+    @Test
+    public void mergeSelf() {
+        var sketch = KllSketch.of(100);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add(i);
+        }
+        sketch.merge(sketch);
+        assertEquals(20_000, sketch.count());
+        assertEquals(5_000, sketch.quantile(0.5), sketch.normalizedRankError() * 10_000 * 2);
+        assertEquals(0, sketch.min());
+        assertEquals(9_999, sketch.max());
+    }
+
+    @Test
+    public void small() {
+        var sketch = KllSketch.of(8);
+        sketch.add(3);
+        sketch.add(1);
+        sketch.add(2);
+        sketch.add(Double.NaN);
+        assertEquals(3, sketch.count());
+        assertEquals(2, sketch.quantile(0.5));
+        assertArrayEquals(new double[]{1, 2, 3}, sketch.quantiles(0, 0.5, 1));
+    }
+}